@@ -31,7 +31,7 @@ const PostCard = ({ post }) => {
         >
           {post.title}
         </Link>
-        <p className="text-gray-700 text-sm mb-4 line-clamp-3 flex-grow">{post.content}</p>
+        <p className="text-gray-700 text-sm mb-4 line-clamp-3 flex-grow">{post.excerpt ?? post.content}</p>
         {(isAdmin || isAuthor) && post.status === 'DRAFT' && (
           <span className="mb-2 inline-block bg-yellow-100 text-yellow-800 text-xs font-medium px-2.5 py-0.5 rounded-full self-start">
             Draft
@@ -6,7 +6,7 @@ import com.codehacks.comment.dto.CommentResponse;
 import com.codehacks.comment.dto.CommentStatistics;
 import com.codehacks.comment.model.CommentStatus;
 import com.codehacks.comment.service.CommentService;
-import com.codehacks.user.model.User;
+import com.codehacks.user.model.AuthenticatedUser;
 import com.codehacks.util.Constants;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +29,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -40,6 +41,8 @@ import java.util.NoSuchElementException;
 @Slf4j
 public class CommentController {
 
+    private static final int MAX_COUNTED_POSTS = 100;
+
     private final CommentService commentService;
 
     /**
@@ -47,7 +50,7 @@ public class CommentController {
      */
     @PostMapping
     public ResponseEntity<CommentResponse> createComment(@Valid @RequestBody CommentRequest request,
-                                                            @AuthenticationPrincipal User currentUser) {
+                                                            @AuthenticationPrincipal AuthenticatedUser currentUser) {
         
         log.info("Creating comment for post {} by user {}", request.getPostId(), currentUser.getId());
         CommentResponse response = commentService.createComment(request, currentUser.getId());
@@ -146,7 +149,7 @@ public class CommentController {
     public ResponseEntity<CommentResponse> updateComment(
             @PathVariable Long id,
             @Valid @RequestBody CommentRequest request,
-            @AuthenticationPrincipal User currentUser) {
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
         
         log.info("Updating comment {} by user {}", id, currentUser.getId());
         CommentResponse response = commentService.updateComment(id, request, currentUser.getId());
@@ -157,7 +160,7 @@ public class CommentController {
      * Delete a comment
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteComment(@PathVariable Long id, @AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<Void> deleteComment(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         
         log.info("Deleting comment {} by user {}", id, currentUser.getId());
         commentService.deleteComment(id, currentUser.getId());
@@ -170,7 +173,7 @@ public class CommentController {
     @PutMapping("/{id}/moderate")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<CommentResponse> moderateComment(@PathVariable Long id,
-            @Valid @RequestBody CommentModerationRequest request, @AuthenticationPrincipal User currentUser) {
+            @Valid @RequestBody CommentModerationRequest request, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         
         log.info("Moderating comment {} by admin {}", id, currentUser.getId());
         CommentResponse response = commentService.moderateComment(id, request, currentUser.getId());
@@ -212,7 +215,7 @@ public class CommentController {
      * Check if a user has commented on a post
      */
     @GetMapping("/check/{postId}")
-    public ResponseEntity<Boolean> hasUserCommentedOnPost(@PathVariable Long postId, @AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<Boolean> hasUserCommentedOnPost(@PathVariable Long postId, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         
         log.debug("Checking if user {} has commented on post {}", currentUser.getId(), postId);
         boolean hasCommented = commentService.hasUserCommentedOnPost(currentUser.getId(), postId);
@@ -250,4 +253,16 @@ public class CommentController {
         long count = commentService.countCommentsByPostId(postId);
         return ResponseEntity.ok(count);
     }
+
+    /**
+     * Count comments for several posts at once (e.g. a feed page), keyed by post ID
+     */
+    @GetMapping("/count/posts")
+    public ResponseEntity<Map<Long, Long>> countCommentsByPostIds(@RequestParam List<Long> postIds) {
+        if (postIds.size() > MAX_COUNTED_POSTS) {
+            throw new IllegalArgumentException("At most " + MAX_COUNTED_POSTS + " post IDs can be counted at once");
+        }
+        log.debug("Counting comments for {} posts", postIds.size());
+        return ResponseEntity.ok(commentService.countCommentsByPostIds(postIds));
+    }
 } 
\ No newline at end of file
@@ -8,7 +8,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +46,49 @@ public class CommentResponse {
      * Convert Comment entity to CommentResponse DTO
      */
     public static CommentResponse fromEntity(Comment comment) {
+        return from(comment)
+                .postTitle(comment.getPost().getTitle())
+                .replies(comment.getReplies() != null ? 
+                    comment.getReplies().stream()
+                        .filter(reply -> reply.getStatus() == CommentStatus.APPROVED)
+                        .map(CommentResponse::fromEntity)
+                        .collect(Collectors.toList()) : null)
+                .hasReplies(comment.hasReplies())
+                .build();
+    }
+
+    /**
+     * Build the approved threads below the given top-level comments from replies loaded up front,
+     * without touching the lazy replies association. Replies whose parent is not among the loaded
+     * comments are not reachable and are left out; replies keep the order they were given in.
+     * Every comment of a thread belongs to the same post, whose title is passed in rather than
+     * loaded through each comment.
+     */
+    public static List<CommentResponse> threadsOf(List<Comment> roots, Collection<Comment> replies, String postTitle) {
+        Map<Long, List<Comment>> repliesByParent = new HashMap<>();
+        for (Comment reply : replies) {
+            repliesByParent.computeIfAbsent(reply.getParentComment().getId(), id -> new ArrayList<>()).add(reply);
+        }
+        List<CommentResponse> threads = new ArrayList<>(roots.size());
+        for (Comment root : roots) {
+            threads.add(threadOf(root, repliesByParent, postTitle));
+        }
+        return threads;
+    }
+
+    private static CommentResponse threadOf(Comment comment, Map<Long, List<Comment>> repliesByParent, String postTitle) {
+        List<CommentResponse> replies = new ArrayList<>();
+        for (Comment reply : repliesByParent.getOrDefault(comment.getId(), List.of())) {
+            replies.add(threadOf(reply, repliesByParent, postTitle));
+        }
+        return from(comment)
+                .postTitle(postTitle)
+                .replies(replies)
+                .hasReplies(!replies.isEmpty())
+                .build();
+    }
+
+    private static CommentResponseBuilder from(Comment comment) {
         return CommentResponse.builder()
                 .id(comment.getId())
                 .content(comment.getContent())
@@ -49,7 +96,6 @@ public class CommentResponse {
                 .authorName(comment.getAuthor().getFirstName() + " " + comment.getAuthor().getLastName())
                 .authorEmail(comment.getAuthor().getEmail())
                 .postId(comment.getPost().getId())
-                .postTitle(comment.getPost().getTitle())
                 .parentCommentId(comment.getParentComment() != null ? comment.getParentComment().getId() : null)
                 .status(comment.getStatus())
                 .moderatedBy(comment.getModeratedBy())
@@ -57,13 +103,6 @@ public class CommentResponse {
                 .moderationNote(comment.getModerationNote())
                 .createdAt(comment.getCreatedAt())
                 .updatedAt(comment.getUpdatedAt())
-                .replies(comment.getReplies() != null ? 
-                    comment.getReplies().stream()
-                        .filter(reply -> reply.getStatus() == CommentStatus.APPROVED)
-                        .map(CommentResponse::fromEntity)
-                        .collect(Collectors.toList()) : null)
-                .isReply(comment.isReply())
-                .hasReplies(comment.hasReplies())
-                .build();
+                .isReply(comment.isReply());
     }
 } 
\ No newline at end of file
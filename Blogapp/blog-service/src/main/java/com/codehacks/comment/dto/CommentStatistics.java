@@ -28,4 +28,21 @@ public class CommentStatistics {
     private String mostActivePostTitle;
     private Long mostActiveUserId;
     private String mostActiveUserName;
+
+    /**
+     * Counts read by the single aggregate statistics query
+     */
+    public CommentStatistics(Long totalComments, Long approvedComments, Long pendingComments, Long spamComments,
+                             Long deletedComments, Long totalReplies, Long commentsToday, Long commentsThisWeek,
+                             Long commentsThisMonth) {
+        this.totalComments = totalComments;
+        this.approvedComments = approvedComments;
+        this.pendingComments = pendingComments;
+        this.spamComments = spamComments;
+        this.deletedComments = deletedComments;
+        this.totalReplies = totalReplies;
+        this.commentsToday = commentsToday;
+        this.commentsThisWeek = commentsThisWeek;
+        this.commentsThisMonth = commentsThisMonth;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.codehacks.comment.dto;
+
+import com.codehacks.comment.model.PostCommentCounter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the comment counts of one post by status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostCommentCounts {
+
+    private Long postId;
+    private long approved;
+    private long pending;
+    private long spam;
+    private long deleted;
+
+    public static PostCommentCounts fromEntity(PostCommentCounter counter) {
+        return new PostCommentCounts(counter.getPostId(), counter.getApproved(), counter.getPending(),
+                counter.getSpam(), counter.getDeleted());
+    }
+
+    /**
+     * Counts of a post that has never had a comment
+     */
+    public static PostCommentCounts empty(Long postId) {
+        return PostCommentCounts.builder().postId(postId).build();
+    }
+}
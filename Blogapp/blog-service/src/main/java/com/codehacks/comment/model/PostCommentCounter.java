@@ -0,0 +1,39 @@
+package com.codehacks.comment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Denormalized comment counts of a post, one counter per status. Maintained by the comment
+ * service on every status change, so reading counts never scans the comments table.
+ */
+@Entity
+@Table(name = "post_comment_counters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostCommentCounter {
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(nullable = false)
+    private long approved;
+
+    @Column(nullable = false)
+    private long pending;
+
+    @Column(nullable = false)
+    private long spam;
+
+    @Column(nullable = false)
+    private long deleted;
+}
@@ -1,15 +1,18 @@
 package com.codehacks.comment.repository;
 
+import com.codehacks.comment.dto.CommentStatistics;
 import com.codehacks.comment.model.Comment;
 import com.codehacks.comment.model.CommentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +28,33 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query("SELECT c FROM Comment c WHERE c.post.id = :postId AND c.status = 'APPROVED' AND c.parentComment IS NULL ORDER BY c.createdAt DESC")
     List<Comment> findApprovedCommentsByPostId(@Param("postId") Long postId);
 
+    /**
+     * Fetch a post's whole approved thread (top-level comments and replies at every depth) with
+     * authors in one query, oldest first; the tree is assembled in memory
+     */
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.post.id = :postId AND c.status = 'APPROVED' ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findApprovedThreadByPostId(@Param("postId") Long postId);
+
+    /**
+     * Ids of the approved replies below the given comments, at every depth, in one recursive query.
+     * A reply is only reachable through approved parents, as in the rendered thread.
+     */
+    @Query(value = """
+            WITH RECURSIVE thread(id) AS (
+                SELECT c.id FROM comments c WHERE c.parent_id IN (:rootIds) AND c.status = 'APPROVED'
+                UNION ALL
+                SELECT c.id FROM comments c JOIN thread t ON c.parent_id = t.id WHERE c.status = 'APPROVED'
+            )
+            SELECT id FROM thread
+            """, nativeQuery = true)
+    List<Long> findApprovedReplyIdsBelow(@Param("rootIds") Collection<Long> rootIds);
+
+    /**
+     * Fetch comments with their authors, oldest first
+     */
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.id IN :ids ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findWithAuthorByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Find all comments for a specific post (including pending and approved)
      */
@@ -54,6 +84,27 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query("SELECT c FROM Comment c WHERE c.status = 'PENDING' ORDER BY c.createdAt ASC")
     List<Comment> findPendingCommentsForModeration();
 
+    /**
+     * All comment statistics counts in one pass over the table; FILTER is rendered natively on
+     * PostgreSQL and emulated with CASE elsewhere
+     */
+    @Query("""
+            SELECT new com.codehacks.comment.dto.CommentStatistics(
+                count(c),
+                count(c) FILTER (WHERE c.status = 'APPROVED'),
+                count(c) FILTER (WHERE c.status = 'PENDING'),
+                count(c) FILTER (WHERE c.status = 'SPAM'),
+                count(c) FILTER (WHERE c.status = 'DELETED'),
+                count(c) FILTER (WHERE c.parentComment IS NOT NULL),
+                count(c) FILTER (WHERE c.createdAt >= :today),
+                count(c) FILTER (WHERE c.createdAt >= :weekAgo),
+                count(c) FILTER (WHERE c.createdAt >= :monthAgo))
+            FROM Comment c
+            """)
+    CommentStatistics aggregateStatistics(@Param("today") LocalDateTime today,
+                                          @Param("weekAgo") LocalDateTime weekAgo,
+                                          @Param("monthAgo") LocalDateTime monthAgo);
+
     /**
      * Count comments by status
      */
@@ -73,6 +124,7 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     /**
      * Find comments by post ID with pagination
      */
+    @EntityGraph(attributePaths = {"author"})
     @Query("SELECT c FROM Comment c WHERE c.post.id = :postId AND c.status = 'APPROVED' AND c.parentComment IS NULL")
     Page<Comment> findApprovedCommentsByPostIdWithPagination(@Param("postId") Long postId, Pageable pageable);
 
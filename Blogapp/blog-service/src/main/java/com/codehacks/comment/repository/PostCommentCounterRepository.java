@@ -0,0 +1,28 @@
+package com.codehacks.comment.repository;
+
+import com.codehacks.comment.model.PostCommentCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PostCommentCounterRepository extends JpaRepository<PostCommentCounter, Long> {
+
+    // Counters of the given posts in one query; posts without comments have no row
+    List<PostCommentCounter> findByPostIdIn(Collection<Long> postIds);
+
+    // Apply per-status deltas to a post's counters in one atomic statement, creating the row on first use
+    @Modifying
+    @Query(value = "INSERT INTO post_comment_counters (post_id, approved, pending, spam, deleted) " +
+            "VALUES (:postId, GREATEST(:approved, 0), GREATEST(:pending, 0), GREATEST(:spam, 0), GREATEST(:deleted, 0)) " +
+            "ON CONFLICT (post_id) DO UPDATE SET " +
+            "approved = GREATEST(post_comment_counters.approved + :approved, 0), " +
+            "pending = GREATEST(post_comment_counters.pending + :pending, 0), " +
+            "spam = GREATEST(post_comment_counters.spam + :spam, 0), " +
+            "deleted = GREATEST(post_comment_counters.deleted + :deleted, 0)", nativeQuery = true)
+    int adjust(@Param("postId") Long postId, @Param("approved") int approved, @Param("pending") int pending,
+               @Param("spam") int spam, @Param("deleted") int deleted);
+}
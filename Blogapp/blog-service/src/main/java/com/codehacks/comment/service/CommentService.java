@@ -4,11 +4,14 @@ import com.codehacks.comment.dto.CommentModerationRequest;
 import com.codehacks.comment.dto.CommentRequest;
 import com.codehacks.comment.dto.CommentResponse;
 import com.codehacks.comment.dto.CommentStatistics;
+import com.codehacks.comment.dto.PostCommentCounts;
 import com.codehacks.comment.model.CommentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -110,4 +113,14 @@ public interface CommentService {
      * Count comments for a specific post
      */
     long countCommentsByPostId(Long postId);
+
+    /**
+     * Count approved comments for each of the given posts in one lookup
+     */
+    Map<Long, Long> countCommentsByPostIds(Collection<Long> postIds);
+
+    /**
+     * Comment counts by status for each of the given posts in one lookup
+     */
+    Map<Long, PostCommentCounts> getCommentCountsByPostIds(Collection<Long> postIds);
 } 
\ No newline at end of file
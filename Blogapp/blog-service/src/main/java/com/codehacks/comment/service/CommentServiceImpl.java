@@ -4,22 +4,33 @@ import com.codehacks.comment.dto.CommentModerationRequest;
 import com.codehacks.comment.dto.CommentRequest;
 import com.codehacks.comment.dto.CommentResponse;
 import com.codehacks.comment.dto.CommentStatistics;
+import com.codehacks.comment.dto.PostCommentCounts;
 import com.codehacks.comment.model.Comment;
 import com.codehacks.comment.model.CommentStatus;
+import com.codehacks.comment.model.PostCommentCounter;
 import com.codehacks.comment.repository.CommentRepository;
+import com.codehacks.comment.repository.PostCommentCounterRepository;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.repository.PostRepository;
 import com.codehacks.user.model.User;
 import com.codehacks.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -36,6 +47,7 @@ public class CommentServiceImpl implements CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final PostCommentCounterRepository postCommentCounterRepository;
 
     @Override
     public CommentResponse createComment(CommentRequest request, Long authorId) {
@@ -64,6 +76,7 @@ public class CommentServiceImpl implements CommentService {
         // Create comment
         Comment comment = CommentRequest.toEntity(request, author, post, parentComment);
         Comment savedComment = commentRepository.save(comment);
+        recordStatusChange(post.getId(), null, savedComment.getStatus());
 
         log.info("Comment created successfully with ID: {}", savedComment.getId());
         return CommentResponse.fromEntity(savedComment);
@@ -81,10 +94,16 @@ public class CommentServiceImpl implements CommentService {
     @Transactional(readOnly = true)
     public List<CommentResponse> getApprovedCommentsByPostId(Long postId) {
         log.debug("Fetching approved comments for post: {}", postId);
-        return commentRepository.findApprovedCommentsByPostId(postId)
-                .stream()
-                .map(CommentResponse::fromEntity)
-                .collect(Collectors.toList());
+        // One query for the whole thread, however many comments and levels it has
+        List<Comment> thread = commentRepository.findApprovedThreadByPostId(postId);
+        List<Comment> roots = new ArrayList<>();
+        List<Comment> replies = new ArrayList<>();
+        for (Comment comment : thread) {
+            (comment.isReply() ? replies : roots).add(comment);
+        }
+        // Newest top-level comments first, replies in the order they were written
+        Collections.reverse(roots);
+        return CommentResponse.threadsOf(roots, replies, thread.isEmpty() ? null : postTitle(postId));
     }
 
     @Override
@@ -101,18 +120,42 @@ public class CommentServiceImpl implements CommentService {
     @Transactional(readOnly = true)
     public Page<CommentResponse> getCommentsByPostIdWithPagination(Long postId, Pageable pageable) {
         log.debug("Fetching comments for post {} with pagination", postId);
-        return commentRepository.findApprovedCommentsByPostIdWithPagination(postId, pageable)
-                .map(CommentResponse::fromEntity);
+        Page<Comment> roots = commentRepository.findApprovedCommentsByPostIdWithPagination(postId, pageable);
+        List<CommentResponse> threads = CommentResponse.threadsOf(roots.getContent(), loadApprovedRepliesBelow(
+                roots.getContent().stream().map(Comment::getId).toList()), roots.isEmpty() ? null : postTitle(postId));
+        return new PageImpl<>(threads, pageable, roots.getTotalElements());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<CommentResponse> getRepliesByCommentId(Long commentId) {
         log.debug("Fetching replies for comment: {}", commentId);
-        return commentRepository.findApprovedRepliesByParentId(commentId)
-                .stream()
-                .map(CommentResponse::fromEntity)
-                .collect(Collectors.toList());
+        List<Comment> replies = loadApprovedRepliesBelow(List.of(commentId));
+        List<Comment> directReplies = replies.stream()
+                .filter(reply -> reply.getParentComment().getId().equals(commentId))
+                .toList();
+        if (directReplies.isEmpty()) {
+            return List.of();
+        }
+        return CommentResponse.threadsOf(directReplies, replies, postTitle(directReplies.get(0).getPost().getId()));
+    }
+
+    /**
+     * Title of the post a thread belongs to, loaded once per thread instead of with every comment
+     */
+    private String postTitle(Long postId) {
+        return postRepository.findTitleById(postId).orElse(null);
+    }
+
+    /**
+     * Approved replies at every depth below the given comments, with authors, in two queries
+     */
+    private List<Comment> loadApprovedRepliesBelow(List<Long> commentIds) {
+        if (commentIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> replyIds = commentRepository.findApprovedReplyIdsBelow(commentIds);
+        return replyIds.isEmpty() ? List.of() : commentRepository.findWithAuthorByIdIn(replyIds);
     }
 
     @Override
@@ -182,8 +225,10 @@ public class CommentServiceImpl implements CommentService {
             throw new SecurityException("User is not authorized to delete this comment");
         }
 
+        CommentStatus previousStatus = comment.getStatus();
         comment.setStatus(CommentStatus.DELETED);
         commentRepository.save(comment);
+        recordStatusChange(comment.getPost().getId(), previousStatus, CommentStatus.DELETED);
 
         log.info("Comment deleted successfully");
     }
@@ -199,12 +244,14 @@ public class CommentServiceImpl implements CommentService {
             throw new IllegalStateException("Comment cannot be moderated in its current state");
         }
 
+        CommentStatus previousStatus = comment.getStatus();
         comment.setStatus(request.getStatus());
         comment.setModeratedBy(moderatorId);
         comment.setModeratedAt(LocalDateTime.now());
         comment.setModerationNote(request.getModerationNote());
 
         Comment moderatedComment = commentRepository.save(comment);
+        recordStatusChange(comment.getPost().getId(), previousStatus, request.getStatus());
 
         log.info("Comment moderated successfully to status: {}", request.getStatus());
         return CommentResponse.fromEntity(moderatedComment);
@@ -212,40 +259,13 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(value = "comment-statistics", key = "'all'", sync = true)
     public CommentStatistics getCommentStatistics() {
         log.debug("Generating comment statistics");
 
-        long totalComments = commentRepository.count();
-        long approvedComments = commentRepository.countByStatus(CommentStatus.APPROVED);
-        long pendingComments = commentRepository.countByStatus(CommentStatus.PENDING);
-        long spamComments = commentRepository.countByStatus(CommentStatus.SPAM);
-        long deletedComments = commentRepository.countByStatus(CommentStatus.DELETED);
-
-        // Calculate replies count
-        long totalReplies = commentRepository.findAll().stream()
-                .filter(Comment::isReply)
-                .count();
-
-        // Calculate recent activity
-        LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime weekAgo = today.minusDays(7);
-        LocalDateTime monthAgo = today.minusDays(30);
-
-        long commentsToday = commentRepository.findCommentsCreatedAfter(today).size();
-        long commentsThisWeek = commentRepository.findCommentsCreatedAfter(weekAgo).size();
-        long commentsThisMonth = commentRepository.findCommentsCreatedAfter(monthAgo).size();
-
-        return CommentStatistics.builder()
-                .totalComments(totalComments)
-                .approvedComments(approvedComments)
-                .pendingComments(pendingComments)
-                .spamComments(spamComments)
-                .deletedComments(deletedComments)
-                .totalReplies(totalReplies)
-                .commentsToday(commentsToday)
-                .commentsThisWeek(commentsThisWeek)
-                .commentsThisMonth(commentsThisMonth)
-                .build();
+        // Recent activity windows, counted in the same aggregate query as the totals
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        return commentRepository.aggregateStatistics(today, today.minusDays(7), today.minusDays(30));
     }
 
     @Override
@@ -294,6 +314,47 @@ public class CommentServiceImpl implements CommentService {
     @Transactional(readOnly = true)
     public long countCommentsByPostId(Long postId) {
         log.debug("Counting comments for post: {}", postId);
-        return commentRepository.countByPostIdAndStatus(postId, CommentStatus.APPROVED);
+        return postCommentCounterRepository.findById(postId)
+                .map(PostCommentCounter::getApproved)
+                .orElse(0L);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Long> countCommentsByPostIds(Collection<Long> postIds) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        getCommentCountsByPostIds(postIds).forEach((postId, postCounts) -> counts.put(postId, postCounts.getApproved()));
+        return counts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, PostCommentCounts> getCommentCountsByPostIds(Collection<Long> postIds) {
+        log.debug("Fetching comment counts for {} posts", postIds.size());
+        Map<Long, PostCommentCounts> counts = new LinkedHashMap<>();
+        postIds.forEach(postId -> counts.put(postId, PostCommentCounts.empty(postId)));
+        if (!counts.isEmpty()) {
+            postCommentCounterRepository.findByPostIdIn(counts.keySet())
+                    .forEach(counter -> counts.put(counter.getPostId(), PostCommentCounts.fromEntity(counter)));
+        }
+        return counts;
+    }
+
+    /**
+     * Move one comment between its post's status counters, in the caller's transaction
+     */
+    private void recordStatusChange(Long postId, CommentStatus from, CommentStatus to) {
+        if (from == to) {
+            return;
+        }
+        postCommentCounterRepository.adjust(postId,
+                delta(CommentStatus.APPROVED, from, to),
+                delta(CommentStatus.PENDING, from, to),
+                delta(CommentStatus.SPAM, from, to),
+                delta(CommentStatus.DELETED, from, to));
+    }
+
+    private static int delta(CommentStatus counted, CommentStatus from, CommentStatus to) {
+        return (counted == to ? 1 : 0) - (counted == from ? 1 : 0);
     }
 } 
\ No newline at end of file
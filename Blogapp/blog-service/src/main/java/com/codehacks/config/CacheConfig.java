@@ -13,12 +13,16 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -27,6 +31,8 @@ public class CacheConfig {
 
     private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
 
+    private static final long DEFAULT_TTL_MS = 600000;
+
     @Value("${app.cache.user.ttl:300000}")
     private long userCacheTtl;
 
@@ -36,6 +42,42 @@ public class CacheConfig {
     @Value("${app.cache.clap.ttl:300000}")
     private long clapCacheTtl;
 
+    @Value("${app.cache.comment-statistics.ttl:30000}")
+    private long commentStatisticsCacheTtl;
+
+    @Value("${app.cache.user.max-size:1000}")
+    private long userCacheMaxSize;
+
+    @Value("${app.cache.post.max-size:500}")
+    private long postCacheMaxSize;
+
+    @Value("${app.cache.clap.max-size:2000}")
+    private long clapCacheMaxSize;
+
+    @Value("${app.cache.user.format:SMILE}")
+    private CacheValueSerializer.Format userCacheFormat;
+
+    @Value("${app.cache.post.format:SMILE}")
+    private CacheValueSerializer.Format postCacheFormat;
+
+    @Value("${app.cache.clap.format:SMILE}")
+    private CacheValueSerializer.Format clapCacheFormat;
+
+    @Value("${app.cache.compression-threshold:2048}")
+    private int cacheCompressionThreshold;
+
+    @Value("${app.cache.local.max-ttl:60000}")
+    private long localCacheMaxTtl;
+
+    @Value("${app.cache.early-refresh.beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${app.cache.load-lock.enabled:true}")
+    private boolean loadLockEnabled;
+
+    @Value("${app.cache.load-lock.lease:2000}")
+    private long loadLockLease;
+
     @Bean
     @Profile("!test")
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
@@ -56,42 +98,122 @@ public class CacheConfig {
         return template;
     }
 
+    /**
+     * Tag index shared through Redis; its sets live as long as the longest-lived cache entries
+     */
     @Bean
     @Profile("!test")
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheTagIndex cacheTagIndex(StringRedisTemplate stringRedisTemplate) {
+        long longestTtl = Math.max(DEFAULT_TTL_MS, Math.max(postCacheTtl, Math.max(userCacheTtl, clapCacheTtl)));
+        return new RedisCacheTagIndex(stringRedisTemplate, Duration.ofMillis(longestTtl));
+    }
+
+    /**
+     * Publishes and receives L1 invalidations between nodes
+     */
+    @Bean
+    @Profile("!test")
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationBus(stringRedisTemplate);
+    }
+
+    @Bean
+    @Profile("!test")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           CacheInvalidationBus cacheInvalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        return container;
+    }
+
+    @Bean
+    @Profile("!test")
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate stringRedisTemplate,
+                                     CacheTagIndex cacheTagIndex, List<CacheTagResolver> cacheTagResolvers,
+                                     CacheInvalidationBus cacheInvalidationBus) {
         // Default cache configuration
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMillis(600000)) // 10 minutes default
+                .entryTtl(Duration.ofMillis(DEFAULT_TTL_MS)) // 10 minutes default
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                .serializeValuesWith(valueSerializer(CacheValueSerializer.Format.SMILE));
+
+        Duration userTtl = Duration.ofMillis(userCacheTtl);
+        Duration postTtl = Duration.ofMillis(postCacheTtl);
+        Duration clapTtl = Duration.ofMillis(clapCacheTtl);
+        Duration commentStatisticsTtl = Duration.ofMillis(commentStatisticsCacheTtl);
+        Duration authTtl = Duration.ofMinutes(5);
 
         // Custom cache configurations for different entities
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         
         // User cache - shorter TTL for frequently changing data
-        cacheConfigurations.put("users", defaultConfig.entryTtl(Duration.ofMillis(userCacheTtl)));
-        cacheConfigurations.put("user", defaultConfig.entryTtl(Duration.ofMillis(userCacheTtl)));
+        RedisCacheConfiguration userConfig = defaultConfig.entryTtl(userTtl)
+                .serializeValuesWith(valueSerializer(userCacheFormat));
+        cacheConfigurations.put("users", userConfig);
+        cacheConfigurations.put("user", userConfig);
         
         // Post cache - longer TTL for relatively static content
-        cacheConfigurations.put("posts", defaultConfig.entryTtl(Duration.ofMillis(postCacheTtl)));
-        cacheConfigurations.put("post", defaultConfig.entryTtl(Duration.ofMillis(postCacheTtl)));
+        RedisCacheConfiguration postConfig = defaultConfig.entryTtl(postTtl)
+                .serializeValuesWith(valueSerializer(postCacheFormat));
+        cacheConfigurations.put("posts", postConfig);
+        cacheConfigurations.put("post", postConfig);
         
         // Clap cache - shorter TTL for frequently updated data
-        cacheConfigurations.put("claps", defaultConfig.entryTtl(Duration.ofMillis(clapCacheTtl)));
-        cacheConfigurations.put("clap", defaultConfig.entryTtl(Duration.ofMillis(clapCacheTtl)));
+        RedisCacheConfiguration clapConfig = defaultConfig.entryTtl(clapTtl)
+                .serializeValuesWith(valueSerializer(clapCacheFormat));
+        cacheConfigurations.put("claps", clapConfig);
+        cacheConfigurations.put("clap", clapConfig);
         
+        // Comment statistics - aggregate over the whole comments table, briefly stale is fine
+        cacheConfigurations.put("comment-statistics", defaultConfig.entryTtl(commentStatisticsTtl));
+
         // Auth cache - very short TTL for security
-        cacheConfigurations.put("auth", defaultConfig.entryTtl(Duration.ofMinutes(5)));
+        cacheConfigurations.put("auth", defaultConfig.entryTtl(authTtl));
 
         RedisCacheManager cacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        // Not a bean itself, so load the per-cache configurations explicitly
+        cacheManager.initializeCaches();
+
+        // Caffeine L1 per cache, sized by the app.cache.*.max-size settings
+        Map<String, Long> maxSizes = Map.of(
+                "users", userCacheMaxSize, "user", userCacheMaxSize,
+                "posts", postCacheMaxSize, "post", postCacheMaxSize,
+                "claps", clapCacheMaxSize, "clap", clapCacheMaxSize);
+        Map<String, Duration> ttls = Map.of(
+                "users", userTtl, "user", userTtl,
+                "posts", postTtl, "post", postTtl,
+                "claps", clapTtl, "clap", clapTtl,
+                "comment-statistics", commentStatisticsTtl,
+                "auth", authTtl);
+        // Stampede protection: loads are coalesced per node, and across nodes when the load lock is enabled
+        CacheLoadLock loadLock = loadLockEnabled
+                ? new CacheLoadLock(stringRedisTemplate, Duration.ofMillis(loadLockLease)) : null;
+        TwoLevelCacheManager twoLevelCacheManager = new TwoLevelCacheManager(cacheManager, maxSizes, ttls,
+                userCacheMaxSize, Duration.ofMillis(localCacheMaxTtl), earlyRefreshBeta, loadLock, cacheInvalidationBus);
 
         log.info("Cache manager configured with Redis and custom TTLs: users={}ms, posts={}ms, claps={}ms", 
                 userCacheTtl, postCacheTtl, clapCacheTtl);
+        log.info("Cache value formats: users={}, posts={}, claps={}, compression from {} bytes",
+                userCacheFormat, postCacheFormat, clapCacheFormat, cacheCompressionThreshold);
+        log.info("Local L1 caches: users={}, posts={}, claps={} entries, max TTL {}ms",
+                userCacheMaxSize, postCacheMaxSize, clapCacheMaxSize, localCacheMaxTtl);
         
-        return cacheManager;
+        return new TaggingCacheManager(twoLevelCacheManager, cacheTagIndex, cacheTagResolvers);
+    }
+
+    private RedisSerializationContext.SerializationPair<Object> valueSerializer(CacheValueSerializer.Format format) {
+        return RedisSerializationContext.SerializationPair.fromSerializer(
+                new CacheValueSerializer(format, cacheCompressionThreshold));
+    }
+
+    @Bean
+    @Profile("test")
+    public CacheTagIndex testCacheTagIndex() {
+        return new InMemoryCacheTagIndex();
     }
 
     /**
@@ -99,10 +221,11 @@ public class CacheConfig {
      */
     @Bean
     @Profile("test")
-    public CacheManager testCacheManager() {
+    public CacheManager testCacheManager(CacheTagIndex cacheTagIndex, List<CacheTagResolver> cacheTagResolvers) {
         ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList("users", "user", "posts", "post", "claps", "clap", "auth"));
+        cacheManager.setCacheNames(java.util.Arrays.asList("users", "user", "posts", "post", "claps", "clap", "auth",
+                "comment-statistics"));
         log.info("Test cache manager configured with simple in-memory cache");
-        return cacheManager;
+        return new TaggingCacheManager(cacheManager, cacheTagIndex, cacheTagResolvers);
     }
 } 
\ No newline at end of file
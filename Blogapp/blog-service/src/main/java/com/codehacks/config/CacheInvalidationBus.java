@@ -0,0 +1,72 @@
+package com.codehacks.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the L1 caches of all nodes coherent over Redis pub/sub. Every local write or eviction
+ * is published as {@code <node>|<cache>|E|<key>} (or {@code C} for a clear); each node drops the
+ * affected entries from its own L1 and ignores messages it published itself.
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "cache-invalidation";
+
+    private static final String SEPARATOR = "|";
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> localCaches = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void register(TwoLevelCache cache) {
+        localCaches.put(cache.getName(), cache);
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(cacheName, EVICT, key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName, CLEAR, "");
+    }
+
+    private void publish(String cacheName, String operation, String key) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, String.join(SEPARATOR, nodeId, cacheName, operation, key));
+        } catch (RuntimeException e) {
+            // Other nodes fall back to their L1 TTL; the write itself already succeeded
+            log.warn("Failed to publish cache invalidation for {}:{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = localCaches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[2])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.codehacks.config;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short-lived Redis lock ({@code SET NX PX}) that lets a single node load a missing cache entry
+ * while the others wait for it to appear in Redis. The lease bounds how long a crashed loader can
+ * hold the key; release only deletes the lock if this node still owns it.
+ */
+public class CacheLoadLock {
+
+    private static final String KEY_PREFIX = "cache-load-lock:";
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lease;
+    private final String owner = UUID.randomUUID().toString();
+
+    public CacheLoadLock(StringRedisTemplate redisTemplate, Duration lease) {
+        this.redisTemplate = redisTemplate;
+        this.lease = lease;
+    }
+
+    public Duration getLease() {
+        return lease;
+    }
+
+    public boolean tryLock(String cacheName, String key) {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), owner, lease);
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    public void unlock(String cacheName, String key) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey(cacheName, key)), owner);
+    }
+
+    private static String lockKey(String cacheName, String key) {
+        return KEY_PREFIX + cacheName + ":" + key;
+    }
+}
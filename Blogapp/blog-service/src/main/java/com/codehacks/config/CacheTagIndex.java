@@ -0,0 +1,16 @@
+package com.codehacks.config;
+
+import java.util.Set;
+
+/**
+ * Reverse index from (cache, tag) to the cache keys tagged with it.
+ */
+public interface CacheTagIndex {
+
+    void add(String cacheName, Set<String> tags, String key);
+
+    /**
+     * Removes and returns every key currently recorded under the tag.
+     */
+    Set<String> drain(String cacheName, String tag);
+}
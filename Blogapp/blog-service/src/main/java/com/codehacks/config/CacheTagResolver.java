@@ -0,0 +1,15 @@
+package com.codehacks.config;
+
+import java.util.Set;
+
+/**
+ * Derives invalidation tags for entries written to one cache. Every key stored in that cache is
+ * recorded under each tag returned here, so a write can later evict exactly the entries that
+ * depend on it through {@link CacheTagService#evictTags}.
+ */
+public interface CacheTagResolver {
+
+    String cacheName();
+
+    Set<String> tagsFor(Object key, Object value);
+}
@@ -0,0 +1,59 @@
+package com.codehacks.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Evicts cache entries by tag instead of clearing a whole cache. Tags are recorded when entries
+ * are stored, by the {@link CacheTagResolver} registered for the cache.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheTagService {
+
+    private final CacheManager cacheManager;
+    private final CacheTagIndex cacheTagIndex;
+
+    /**
+     * Evicts every entry recorded under any of the tags. Inside a transaction the eviction is
+     * deferred until after commit, so a concurrent reader cannot re-cache the pre-commit state.
+     */
+    public void evictTags(String cacheName, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(cacheName, tags);
+                }
+            });
+        } else {
+            evictNow(cacheName, tags);
+        }
+    }
+
+    private void evictNow(String cacheName, Collection<String> tags) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        int evicted = 0;
+        for (String tag : tags) {
+            Set<String> keys = cacheTagIndex.drain(cacheName, tag);
+            keys.forEach(cache::evict);
+            evicted += keys.size();
+        }
+        log.debug("Evicted {} entries from cache {} for tags {}", evicted, cacheName, tags);
+    }
+}
@@ -0,0 +1,131 @@
+package com.codehacks.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Redis value serializer for the caches, chosen per cache: {@link Format#JSON} (what the caches
+ * always used) or {@link Format#SMILE}, Jackson's binary JSON, which back-references repeated
+ * property names and class hints and skips text number/date formatting. Payloads larger than the
+ * compression threshold are deflated (e.g. long post content).
+ *
+ * Reading detects the format from the payload itself, so existing JSON entries stay readable after
+ * a cache is switched to Smile and both formats can coexist in Redis during a rollout.
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    public enum Format { JSON, SMILE }
+
+    // Neither a JSON document nor a Smile header (":)\n") can start with this byte
+    private static final byte DEFLATE_MARKER = 0x1F;
+
+    private static final ObjectMapper JSON_MAPPER = createMapper(new JsonFactory());
+    // Also back-reference repeated short string values, which are mostly class hints
+    private static final ObjectMapper SMILE_MAPPER = createMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+
+    private final Format format;
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold payloads of at least this many bytes are deflated; 0 disables compression
+     */
+    public CacheValueSerializer(Format format, int compressionThreshold) {
+        this.format = format;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] encoded = (format == Format.SMILE ? SMILE_MAPPER : JSON_MAPPER).writeValueAsBytes(value);
+            if (compressionThreshold <= 0 || encoded.length < compressionThreshold) {
+                return encoded;
+            }
+            return deflate(encoded);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] == DEFLATE_MARKER) {
+                try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+                    bytes = in.readAllBytes();
+                }
+            }
+            Object value = mapperFor(bytes).readValue(bytes, Object.class);
+            // Caches recognise a cached null by identity
+            return value instanceof NullValue ? NullValue.INSTANCE : value;
+        } catch (IOException e) {
+            throw new SerializationException("Could not read cache value: " + e.getMessage(), e);
+        }
+    }
+
+    private static ObjectMapper mapperFor(byte[] bytes) {
+        boolean smile = bytes.length >= 3 && bytes[0] == ':' && bytes[1] == ')' && bytes[2] == '\n';
+        return smile ? SMILE_MAPPER : JSON_MAPPER;
+    }
+
+    private static byte[] deflate(byte[] encoded) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length / 2);
+        out.write(DEFLATE_MARKER);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflating = new DeflaterOutputStream(out, deflater)) {
+            deflating.write(encoded);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    // DefaultTyping.EVERYTHING is deprecated, but the other typings leave final types such as Long
+    // untyped, and a Long held in an Object field would come back as an Integer
+    @SuppressWarnings("deprecation")
+    private static ObjectMapper createMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.registerModule(new JavaTimeModule());
+        // Derived getters (e.g. UserDetails flags) are written but have no setter to read them back
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        // Values are read back as Object, so every value carries its class, as with GenericJackson2JsonRedisSerializer
+        BasicPolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.codehacks.")
+                .allowIfSubType("java.")
+                .allowIfSubType(NullValue.class)
+                .build();
+        mapper.activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(mapper, null);
+        return mapper;
+    }
+}
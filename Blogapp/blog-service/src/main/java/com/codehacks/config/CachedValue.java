@@ -0,0 +1,20 @@
+package com.codehacks.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Envelope stored by {@link TwoLevelCache}: the cached value plus what probabilistic early
+ * refresh needs, namely when the shared entry expires and how long the value took to compute.
+ * computeMillis is 0 when unknown (values written with a plain put), which disables early refresh.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedValue {
+
+    private Object value;
+    private long expiresAt;
+    private long computeMillis;
+}
@@ -0,0 +1,103 @@
+package com.codehacks.config;
+
+import com.codehacks.image.storage.CachingImageStorage;
+import com.codehacks.image.storage.ImageStorage;
+import com.codehacks.image.storage.LocalImageStorage;
+import com.codehacks.image.storage.S3ImageStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+@Configuration
+public class ImageStorageConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStorageConfig.class);
+
+    @Value("${app.image.storage.type:local}")
+    private String storageType;
+
+    @Value("${app.image.upload.path:uploads/images}")
+    private String uploadPath;
+
+    @Value("${app.image.storage.local.fsync:true}")
+    private boolean fsync;
+
+    @Value("${app.image.storage.cache.max-bytes:67108864}")
+    private long cacheMaxBytes;
+
+    @Value("${app.image.storage.cache.max-entry-bytes:1048576}")
+    private long cacheMaxEntryBytes;
+
+    @Value("${app.image.storage.s3.bucket:}")
+    private String bucket;
+
+    @Value("${app.image.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${app.image.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${app.image.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${app.image.storage.s3.secret-key:}")
+    private String secretKey;
+
+    /**
+     * Local directory storage by default; "s3" stores images in a bucket shared by all replicas.
+     * Either way the hottest files are served from an off-heap cache, unless its max-bytes is 0.
+     */
+    @Bean
+    public ImageStorage imageStorage(ObjectProvider<MeterRegistry> meterRegistry) {
+        ImageStorage storage = backingStorage();
+        if (cacheMaxBytes <= 0) {
+            return storage;
+        }
+        log.info("Caching up to {} bytes of image files off-heap (files up to {} bytes)", cacheMaxBytes, cacheMaxEntryBytes);
+        CachingImageStorage cachingStorage = new CachingImageStorage(storage, cacheMaxBytes, cacheMaxEntryBytes);
+        meterRegistry.ifAvailable(cachingStorage::bindTo);
+        return cachingStorage;
+    }
+
+    private ImageStorage backingStorage() {
+        if ("s3".equalsIgnoreCase(storageType)) {
+            if (bucket.isBlank()) {
+                throw new IllegalStateException("app.image.storage.s3.bucket is required for S3 image storage");
+            }
+            log.info("Storing images in S3 bucket {}{}", bucket, endpoint.isBlank() ? "" : " at " + endpoint);
+            return new S3ImageStorage(s3Client(), bucket);
+        }
+        log.info("Storing images under {} (fsync {})", uploadPath, fsync ? "on" : "off");
+        return new LocalImageStorage(Paths.get(uploadPath), fsync);
+    }
+
+    /**
+     * Explicit keys when configured, otherwise the default AWS credential chain; a custom endpoint
+     * (MinIO and other S3-compatible stores) is addressed path-style
+     */
+    private S3Client s3Client() {
+        S3ClientBuilder builder = S3Client.builder().region(Region.of(region));
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.codehacks.config;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local tag index, used with the in-memory cache manager in tests.
+ */
+public class InMemoryCacheTagIndex implements CacheTagIndex {
+
+    private final Map<String, Set<String>> keysByTag = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(String cacheName, Set<String> tags, String key) {
+        for (String tag : tags) {
+            keysByTag.computeIfAbsent(cacheName + ":" + tag, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    @Override
+    public Set<String> drain(String cacheName, String tag) {
+        Set<String> keys = keysByTag.remove(cacheName + ":" + tag);
+        return keys == null ? Set.of() : keys;
+    }
+}
@@ -1,12 +1,17 @@
 package com.codehacks.config;
 
+import com.codehacks.user.model.AuthenticatedUser;
+import com.codehacks.user.model.User;
+import com.codehacks.user.service.AuthenticatedUserCache;
 import com.codehacks.user.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -24,6 +29,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserService userService;
+    private final AuthenticatedUserCache authenticatedUserCache;
+
+    // Revocation check for claims-bearing tokens; served from the users cache
+    @Value("${jwt.claims.verify-version:true}")
+    private boolean verifyTokenVersion = true;
 
     @Override
     protected void doFilterInternal(
@@ -33,6 +43,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final Claims claims;
         final String userEmail; // Using email as username for Spring Security
 
         // 1. Check for Authorization header and Bearer token
@@ -44,9 +55,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         // 2. Extract JWT token
         jwt = authHeader.substring(7); // "Bearer " is 7 characters
 
-        // 3. Extract username (email) from token
+        // 3. Verify the token once and extract username (email) from its claims
         try {
-            userEmail = jwtService.extractUsername(jwt);
+            claims = jwtService.parseToken(jwt);
+            userEmail = claims.getSubject();
         } catch (Exception e) {
             // Log the exception (e.g., token expired, malformed)
             log.warn("JWT extraction failed: {}", e.getMessage());
@@ -60,9 +72,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         // 4. Validate token and set SecurityContext
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             // User is not yet authenticated in the current security context
-            UserDetails userDetails = this.userService.loadUserByUsername(userEmail);
+            UserDetails userDetails = resolvePrincipal(claims, userEmail);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                 // If token is valid, create an Authentication object
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -80,5 +92,21 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response); // Continue to the next filter in the chain
     }
+
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        // Claims-bearing token: id and role are signed into it, so no lookup is needed
+        AuthenticatedUser principal = jwtService.principalFromClaims(claims);
+        if (principal != null) {
+            if (verifyTokenVersion && principal.getTokenVersion() != userService.getTokenVersion(principal.getId())) {
+                log.warn("JWT token has been revoked for user: {}", userEmail);
+                return null;
+            }
+            return principal;
+        }
+        // Subject-only token: a token seen recently resolves its principal from the near-cache
+        // without leaving the process
+        return authenticatedUserCache.get(userEmail, claims.getIssuedAt(),
+                () -> AuthenticatedUser.from((User) userService.loadUserByUsername(userEmail)));
+    }
 }
 
@@ -1,6 +1,13 @@
 package com.codehacks.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.codehacks.user.model.AuthenticatedUser;
+import com.codehacks.user.model.User;
+import com.codehacks.user.model.UserRole;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -10,46 +17,151 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 @Slf4j
 public class JwtService {
 
+    // Claims that let a request be authenticated from the token alone
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
+    @Value("${jwt.claims.enabled:true}")
+    private boolean claimsEnabled = true;
+
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize = 10000;
+
+    @Value("${jwt.verified-cache.max-ttl:300000}")
+    private long verifiedCacheMaxTtl = 300000;
+
+    // Built once from the secret on first use; the key, parser and cache are immutable and thread-safe
+    private volatile Key signInKey;
+    private volatile JwtParser parser;
+    private volatile Cache<String, Claims> verifiedTokens;
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the token's signature and expiry and returns its claims. Tokens already verified are
+     * served from a bounded cache keyed by the token's SHA-256 digest, each entry expiring no later
+     * than the token itself, so a client reusing its token pays for one full parse.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseToken(String token) {
+        initialize();
+        String digest = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims != null && !isExpired(claims)) {
+            return claims;
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        verifiedTokens.put(digest, claims);
+        return claims;
     }
 
-    // Get the signing key from the base64 encoded secret
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        initialize();
+        return signInKey;
+    }
+
+    private void initialize() {
+        if (verifiedTokens != null) {
+            return;
+        }
+        synchronized (this) {
+            if (verifiedTokens == null) {
+                // Get the signing key from the base64 encoded secret
+                signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+                parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+                verifiedTokens = Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheMaxSize)
+                        .expireAfter(new TokenExpiry(verifiedCacheMaxTtl))
+                        .build();
+            }
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        return generateToken(principalClaims(userDetails), userDetails);
+    }
+
+    /**
+     * Claims identifying the user's id, role and token version, when the details carry them and
+     * claims-bearing tokens are enabled (jwt.claims.enabled); otherwise the token only has a subject.
+     */
+    public Map<String, Object> principalClaims(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        if (!claimsEnabled) {
+            return claims;
+        }
+        if (userDetails instanceof User user) {
+            putPrincipalClaims(claims, user.getId(), user.getRole(), user.getTokenVersion());
+        } else if (userDetails instanceof AuthenticatedUser principal) {
+            putPrincipalClaims(claims, principal.getId(), principal.getRole(), principal.getTokenVersion());
+        }
+        return claims;
+    }
+
+    private static void putPrincipalClaims(Map<String, Object> claims, Long userId, UserRole role, int tokenVersion) {
+        if (userId != null && role != null) {
+            claims.put(USER_ID_CLAIM, userId);
+            claims.put(ROLE_CLAIM, role.name());
+            claims.put(TOKEN_VERSION_CLAIM, tokenVersion);
+        }
+    }
+
+    /**
+     * Builds the principal from a verified token's claims, or returns null for tokens without
+     * user id and role (issued before claims-bearing tokens), which need a user lookup.
+     */
+    public AuthenticatedUser principalFromClaims(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        try {
+            return new AuthenticatedUser(userId.longValue(), claims.getSubject(), UserRole.valueOf(role),
+                    tokenVersion == null ? 0 : tokenVersion.intValue());
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unknown role claim in token: {}", role);
+            return null;
+        }
     }
 
     // Generate token with extra claims
@@ -72,15 +184,39 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(parseToken(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Same check on claims already returned by {@link #parseToken(String)}, without parsing again.
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    /**
+     * Keeps a verified token's claims until the token expires, but no longer than maxTtlMillis.
+     */
+    private record TokenExpiry(long maxTtlMillis) implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            long untilExpiry = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(untilExpiry, maxTtlMillis)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
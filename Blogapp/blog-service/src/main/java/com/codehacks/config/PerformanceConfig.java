@@ -25,6 +25,13 @@ public class PerformanceConfig {
     @EventListener(ApplicationReadyEvent.class)
     public void configureCacheMetrics() {
         CacheManager cacheManager = applicationContext.getBean(CacheManager.class);
+        if (cacheManager instanceof TaggingCacheManager taggingCacheManager) {
+            cacheManager = taggingCacheManager.getDelegate();
+        }
+        if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            log.info("Two-level cache configured: Caffeine L1 in front of the shared cache");
+            cacheManager = twoLevelCacheManager.getL2CacheManager();
+        }
         if (cacheManager instanceof RedisCacheManager) {
             log.info("Redis cache manager configured for performance monitoring");
             log.info("Cache metrics available at /actuator/metrics/cache.*");
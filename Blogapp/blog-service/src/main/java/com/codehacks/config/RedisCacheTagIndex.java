@@ -0,0 +1,56 @@
+package com.codehacks.config;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Tag index kept in Redis sets ({@code cache-tags:<cache>:<tag>}), so it is shared by every node
+ * using the same Redis cache. Each set expires with the longest cache TTL, refreshed on every
+ * write, so tags of entries that simply expired do not accumulate.
+ */
+public class RedisCacheTagIndex implements CacheTagIndex {
+
+    private static final String KEY_PREFIX = "cache-tags:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public RedisCacheTagIndex(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public void add(String cacheName, Set<String> tags, String key) {
+        byte[] member = key.getBytes(StandardCharsets.UTF_8);
+        // One round trip for all tags of the entry
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String tag : tags) {
+                byte[] setKey = setKey(cacheName, tag).getBytes(StandardCharsets.UTF_8);
+                connection.setCommands().sAdd(setKey, member);
+                connection.keyCommands().pExpire(setKey, ttl.toMillis());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Set<String> drain(String cacheName, String tag) {
+        String setKey = setKey(cacheName, tag);
+        Set<String> keys = redisTemplate.opsForSet().members(setKey);
+        if (keys == null || keys.isEmpty()) {
+            return Set.of();
+        }
+        // Remove only what was read, so keys tagged concurrently stay indexed
+        redisTemplate.opsForSet().remove(setKey, keys.toArray());
+        return keys;
+    }
+
+    private static String setKey(String cacheName, String tag) {
+        return KEY_PREFIX + cacheName + ":" + tag;
+    }
+}
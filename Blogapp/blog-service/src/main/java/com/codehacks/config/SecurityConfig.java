@@ -48,6 +48,8 @@ public class SecurityConfig {
                         .requestMatchers(
                                 Constants.AUTH_PATH + "/**", // Allow all auth endpoints (login, register, magic link)
                                 Constants.POSTS_PATH, // Allow public access to get all posts
+                                Constants.POSTS_FEED_ENDPOINT, // Allow public access to the paginated feed
+                                Constants.POSTS_BY_AUTHOR_ENDPOINT, // Allow public access to an author's published posts
                                 Constants.POSTS_PATH + "/{id}", // Allow public access to get single post (refine for drafts)
                                 Constants.POSTS_PATH + "/{id}/claps/count", // Allow public access to clap count
                                 Constants.SUBSCRIPTIONS_PATH, // Allow public access to subscribe
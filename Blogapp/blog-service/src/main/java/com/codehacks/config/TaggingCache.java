@@ -0,0 +1,105 @@
+package com.codehacks.config;
+
+import org.springframework.cache.Cache;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache decorator that records the tags of every entry it stores in a {@link CacheTagIndex}.
+ * Keys are normalised to strings so that an id cached as a Long and the same id read back from
+ * the index address the same entry, whatever the underlying cache implementation.
+ */
+public class TaggingCache implements Cache {
+
+    private final Cache delegate;
+    private final CacheTagResolver resolver;
+    private final CacheTagIndex index;
+
+    public TaggingCache(Cache delegate, CacheTagResolver resolver, CacheTagIndex index) {
+        this.delegate = delegate;
+        this.resolver = resolver;
+        this.index = index;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(normalize(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(normalize(key), type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = normalize(key);
+        return delegate.get(cacheKey, () -> {
+            T value = valueLoader.call();
+            tag(cacheKey, value);
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = normalize(key);
+        delegate.put(cacheKey, value);
+        tag(cacheKey, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String cacheKey = normalize(key);
+        ValueWrapper existing = delegate.putIfAbsent(cacheKey, value);
+        if (existing == null) {
+            tag(cacheKey, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(normalize(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(normalize(key));
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private void tag(String cacheKey, Object value) {
+        if (value == null) {
+            return;
+        }
+        Set<String> tags = resolver.tagsFor(cacheKey, value);
+        if (!tags.isEmpty()) {
+            index.add(getName(), tags, cacheKey);
+        }
+    }
+
+    private static String normalize(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,51 @@
+package com.codehacks.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Wraps another CacheManager so that caches with a registered {@link CacheTagResolver} record
+ * their entries in the tag index. Caches without a resolver are returned unchanged.
+ */
+public class TaggingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheTagIndex index;
+    private final Map<String, CacheTagResolver> resolvers;
+    private final Map<String, Cache> taggingCaches = new ConcurrentHashMap<>();
+
+    public TaggingCacheManager(CacheManager delegate, CacheTagIndex index, List<CacheTagResolver> resolvers) {
+        this.delegate = delegate;
+        this.index = index;
+        this.resolvers = resolvers.stream()
+                .collect(Collectors.toMap(CacheTagResolver::cacheName, Function.identity()));
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        CacheTagResolver resolver = resolvers.get(name);
+        if (resolver == null) {
+            return delegate.getCache(name);
+        }
+        return taggingCaches.computeIfAbsent(name, n -> {
+            Cache cache = delegate.getCache(n);
+            return cache == null ? null : new TaggingCache(cache, resolver, index);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
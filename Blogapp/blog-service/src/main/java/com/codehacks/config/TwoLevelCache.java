@@ -0,0 +1,347 @@
+package com.codehacks.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded in-process Caffeine cache (L1) in front of a shared cache (L2, Redis). Reads are
+ * served from L1 when possible and fall through to L2 on a miss; writes and evictions go to both
+ * levels and are broadcast through the {@link CacheInvalidationBus} so other nodes drop their
+ * now stale L1 copy. Keys are normalised to strings, matching how Redis stores them.
+ *
+ * Loads through {@link #get(Object, Callable)} (i.e. {@code @Cacheable(sync = true)}) are
+ * protected against stampedes: concurrent misses for a key share one in-flight load per node,
+ * an optional {@link CacheLoadLock} lets a single node load while the others wait for the result
+ * in L2, and entries are refreshed probabilistically before they expire (XFetch), so a popular
+ * key is recomputed by one caller ahead of its TTL instead of by every caller after it.
+ *
+ * An L1 entry lives for the L1 TTL or until its L2 entry expires, whichever comes first, so a value
+ * copied from L2 near the end of its life is not served locally after L2 has dropped it.
+ *
+ * L1 keeps values serialized and every read deserializes a fresh copy, as a read from Redis would:
+ * cached values include entities that callers modify, and a shared instance would leak one
+ * request's unsaved changes into every other request on the node.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private static final long LOCK_POLL_INTERVAL_MS = 50;
+
+    // L1 copies never leave the process, so they skip compression
+    private static final CacheValueSerializer LOCAL_SERIALIZER =
+            new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 0);
+
+    private final Cache l2;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalCopy> l1;
+    private final Duration l2Ttl;
+    private final double earlyRefreshBeta;
+    private final CacheLoadLock loadLock;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public TwoLevelCache(Cache l2, long maxSize, Duration l1Ttl, Duration l2Ttl, double earlyRefreshBeta,
+                         CacheLoadLock loadLock, CacheInvalidationBus invalidationBus) {
+        this.l2 = l2;
+        this.l1 = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new RemainingTtlExpiry(l1Ttl))
+                .build();
+        this.l2Ttl = l2Ttl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.loadLock = loadLock;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        CachedValue cached = lookup(normalize(key));
+        return cached == null ? null : new SimpleValueWrapper(cached.getValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = normalize(key);
+        CachedValue cached = lookup(cacheKey);
+        if (cached != null) {
+            // While a refresh is already running, everyone else keeps getting the current value
+            if (!shouldRefreshEarly(cached) || inFlight.containsKey(cacheKey)) {
+                return (T) cached.getValue();
+            }
+            log.debug("Early refresh of {}:{}", getName(), cacheKey);
+        }
+        return (T) loadOnce(cacheKey, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(normalize(key), value, 0);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String cacheKey = normalize(key);
+        CachedValue entry = envelope(value, 0);
+        ValueWrapper existing = l2.putIfAbsent(cacheKey, entry);
+        CachedValue current = existing == null ? entry : unwrap(existing.get());
+        l1.put(cacheKey, LocalCopy.of(current));
+        return existing == null ? null : new SimpleValueWrapper(current.getValue());
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = normalize(key);
+        l2.evict(cacheKey);
+        l1.invalidate(cacheKey);
+        invalidationBus.publishEvict(getName(), cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.invalidateAll();
+        invalidationBus.publishClear(getName());
+    }
+
+    /**
+     * Drops a key from this node's L1 only; called for invalidations published by other nodes.
+     */
+    public void evictLocal(String key) {
+        l1.invalidate(key);
+    }
+
+    public void clearLocal() {
+        l1.invalidateAll();
+    }
+
+    private CachedValue lookup(String cacheKey) {
+        LocalCopy local = l1.getIfPresent(cacheKey);
+        if (local != null) {
+            return local.read();
+        }
+        CachedValue shared = readL2(cacheKey);
+        if (shared != null) {
+            l1.put(cacheKey, LocalCopy.of(shared));
+        }
+        return shared;
+    }
+
+    private CachedValue readL2(String cacheKey) {
+        ValueWrapper wrapper = l2.get(cacheKey);
+        return wrapper == null ? null : unwrap(wrapper.get());
+    }
+
+    /**
+     * Single-flight load: the first caller for a key runs the loader, concurrent callers on this
+     * node wait for and share its result (or its failure).
+     */
+    private Object loadOnce(String cacheKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(cacheKey, load);
+        if (running != null) {
+            try {
+                // The loading caller keeps the loaded instance; everyone else gets a copy of it
+                return copy(running.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            Object value = loadAcrossNodes(cacheKey, valueLoader);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Never leave waiters blocked, even if the loader failed with an Error
+            if (!load.isDone()) {
+                load.completeExceptionally(new IllegalStateException("Cache load for " + cacheKey + " aborted"));
+            }
+            inFlight.remove(cacheKey, load);
+        }
+    }
+
+    private Object loadAcrossNodes(String cacheKey, Callable<?> valueLoader) {
+        boolean locked = tryLoadLock(cacheKey);
+        if (!locked) {
+            // Another node is loading this key: serve its result (or the current value) from L2
+            CachedValue loadedElsewhere = awaitOtherNode(cacheKey);
+            if (loadedElsewhere != null) {
+                l1.put(cacheKey, LocalCopy.of(loadedElsewhere));
+                return loadedElsewhere.getValue();
+            }
+        }
+
+        try {
+            long start = System.nanoTime();
+            Object value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(cacheKey, valueLoader, e);
+            }
+            long computeMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            store(cacheKey, value, computeMillis);
+            return value;
+        } finally {
+            if (locked && loadLock != null) {
+                releaseLoadLock(cacheKey);
+            }
+        }
+    }
+
+    /**
+     * The lock only saves duplicate work, so any Redis problem fails open and the node loads itself.
+     */
+    private boolean tryLoadLock(String cacheKey) {
+        if (loadLock == null) {
+            return true;
+        }
+        try {
+            return loadLock.tryLock(getName(), cacheKey);
+        } catch (RuntimeException e) {
+            log.warn("Cache load lock unavailable for {}:{}: {}", getName(), cacheKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void releaseLoadLock(String cacheKey) {
+        try {
+            loadLock.unlock(getName(), cacheKey);
+        } catch (RuntimeException e) {
+            // The lease expires on its own
+            log.warn("Failed to release cache load lock for {}:{}: {}", getName(), cacheKey, e.getMessage());
+        }
+    }
+
+    private CachedValue awaitOtherNode(String cacheKey) {
+        long deadline = System.currentTimeMillis() + loadLock.getLease().toMillis();
+        try {
+            do {
+                CachedValue shared = readL2(cacheKey);
+                if (shared != null) {
+                    return shared;
+                }
+                Thread.sleep(LOCK_POLL_INTERVAL_MS);
+            } while (System.currentTimeMillis() < deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private void store(String cacheKey, Object value, long computeMillis) {
+        CachedValue entry = envelope(value, computeMillis);
+        l2.put(cacheKey, entry);
+        l1.put(cacheKey, LocalCopy.of(entry));
+        invalidationBus.publishEvict(getName(), cacheKey);
+    }
+
+    private CachedValue envelope(Object value, long computeMillis) {
+        return new CachedValue(value, System.currentTimeMillis() + l2Ttl.toMillis(), computeMillis);
+    }
+
+    /**
+     * XFetch: refresh when now - computeTime * beta * ln(random) passes the expiry, which becomes
+     * increasingly likely as expiry approaches and for values that are expensive to compute.
+     */
+    private boolean shouldRefreshEarly(CachedValue cached) {
+        if (cached.getComputeMillis() <= 0 || earlyRefreshBeta <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -cached.getComputeMillis() * earlyRefreshBeta * Math.log(random);
+        return System.currentTimeMillis() + gap >= cached.getExpiresAt();
+    }
+
+    private static CachedValue unwrap(Object stored) {
+        // Entries written before values were enveloped carry no refresh metadata
+        return stored instanceof CachedValue cached ? cached : new CachedValue(stored, Long.MAX_VALUE, 0);
+    }
+
+    private static String normalize(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static Object copy(Object value) {
+        return value == null ? null : LOCAL_SERIALIZER.deserialize(LOCAL_SERIALIZER.serialize(value));
+    }
+
+    /**
+     * Serialized envelope held in L1, with its L2 expiry kept alongside so expiry needs no decoding.
+     */
+    private record LocalCopy(byte[] payload, long expiresAt) {
+
+        static LocalCopy of(CachedValue cached) {
+            return new LocalCopy(LOCAL_SERIALIZER.serialize(cached), cached.getExpiresAt());
+        }
+
+        CachedValue read() {
+            return unwrap(LOCAL_SERIALIZER.deserialize(payload));
+        }
+    }
+
+    /**
+     * Expires an L1 entry after the L1 TTL, or earlier when its envelope says L2 expires sooner.
+     * Reads leave the expiry as it is.
+     */
+    private static final class RemainingTtlExpiry implements Expiry<String, LocalCopy> {
+
+        private final long l1TtlNanos;
+
+        private RemainingTtlExpiry(Duration l1Ttl) {
+            this.l1TtlNanos = l1Ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, LocalCopy value, long currentTime) {
+            long remainingMillis = Math.max(0, value.expiresAt() - System.currentTimeMillis());
+            return Math.min(l1TtlNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, LocalCopy value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, LocalCopy value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
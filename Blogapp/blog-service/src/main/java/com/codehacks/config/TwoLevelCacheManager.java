@@ -0,0 +1,68 @@
+package com.codehacks.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts a bounded Caffeine L1 in front of every cache of the shared (Redis) cache manager.
+ * L1 sizes come from the per-cache max-size settings; L1 entries never outlive their L2
+ * counterpart (each expires with the remaining TTL of the L2 entry it was copied from) and are
+ * capped at a short TTL as a safety net for missed invalidation messages.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager l2CacheManager;
+    private final Map<String, Long> maxSizes;
+    private final Map<String, Duration> ttls;
+    private final long defaultMaxSize;
+    private final Duration maxL1Ttl;
+    private final double earlyRefreshBeta;
+    private final CacheLoadLock loadLock;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param loadLock optional cross-node lock for cache loads; null to coalesce loads per node only
+     */
+    public TwoLevelCacheManager(CacheManager l2CacheManager, Map<String, Long> maxSizes, Map<String, Duration> ttls,
+                                long defaultMaxSize, Duration maxL1Ttl, double earlyRefreshBeta,
+                                CacheLoadLock loadLock, CacheInvalidationBus invalidationBus) {
+        this.l2CacheManager = l2CacheManager;
+        this.maxSizes = maxSizes;
+        this.ttls = ttls;
+        this.defaultMaxSize = defaultMaxSize;
+        this.maxL1Ttl = maxL1Ttl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.loadLock = loadLock;
+        this.invalidationBus = invalidationBus;
+    }
+
+    public CacheManager getL2CacheManager() {
+        return l2CacheManager;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            Cache l2 = l2CacheManager.getCache(n);
+            if (l2 == null) {
+                return null;
+            }
+            Duration ttl = ttls.getOrDefault(n, maxL1Ttl);
+            TwoLevelCache cache = new TwoLevelCache(l2, maxSizes.getOrDefault(n, defaultMaxSize),
+                    ttl.compareTo(maxL1Ttl) < 0 ? ttl : maxL1Ttl, ttl, earlyRefreshBeta, loadLock, invalidationBus);
+            invalidationBus.register(cache);
+            return cache;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2CacheManager.getCacheNames();
+    }
+}
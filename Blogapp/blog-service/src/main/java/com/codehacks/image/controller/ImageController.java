@@ -1,5 +1,6 @@
 package com.codehacks.image.controller;
 
+import com.codehacks.image.dto.ImageFile;
 import com.codehacks.image.dto.ImageResponse;
 import com.codehacks.image.dto.ImageStatsResponse;
 import com.codehacks.image.dto.ImageTypeStatsResponse;
@@ -9,9 +10,10 @@ import com.codehacks.user.model.User;
 import com.codehacks.util.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +27,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -36,11 +40,14 @@ import java.util.List;
 @Slf4j
 public class ImageController {
 
+    private static final Duration IMAGE_FILE_MAX_AGE = Duration.ofDays(365);
+
     private final ImageService imageService;
 
     /**
      * Upload a new image
-     * Requires authenticated user.
+     * Requires authenticated user. The image is processed in the background: the response is 202 with
+     * the PENDING image, and its Location is the status endpoint to poll until it is READY or FAILED.
      */
     @PostMapping("/upload")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MODERATOR')")
@@ -52,12 +59,12 @@ public class ImageController {
             @RequestAttribute("currentUser") User currentUser) {
         log.info("Uploading image of type: {} by user: {}", imageType, currentUser.getId());
         ImageResponse response = imageService.uploadImage(file, imageType, altText, description, currentUser.getId());
-        return ResponseEntity.status(201).body(response);
+        return accepted(response);
     }
 
     /**
      * Upload profile picture (replaces existing)
-     * Requires authenticated user.
+     * Requires authenticated user. Processed in the background like other uploads.
      */
     @PostMapping("/profile-picture")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MODERATOR')")
@@ -68,7 +75,7 @@ public class ImageController {
             @RequestAttribute("currentUser") User currentUser) {
         log.info("Uploading profile picture for user: {}", currentUser.getId());
         ImageResponse response = imageService.uploadProfilePicture(file, altText, description, currentUser.getId());
-        return ResponseEntity.status(201).body(response);
+        return accepted(response);
     }
 
     /**
@@ -89,29 +96,46 @@ public class ImageController {
     }
 
     /**
-     * Get image file by ID (public access for featured images only)
+     * Get the processing status of an uploaded image
+     * Uploaders can poll their own images, admins any image.
      */
-    @GetMapping("/{id}/file")
-    public ResponseEntity<ByteArrayResource> getImageFile(@PathVariable Long id) {
-        log.info("Fetching image file by ID: {}", id);
+    @GetMapping("/{id}/status")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MODERATOR')")
+    public ResponseEntity<ImageResponse> getImageStatus(@PathVariable Long id,
+                                                        @RequestAttribute("currentUser") User currentUser) {
+        log.info("Fetching status of image {} for user: {}", id, currentUser.getId());
         return imageService.getImageById(id)
                 .map(image -> {
-                    // Only allow public access to featured images
-                    if (image.getImageType() != ImageType.FEATURED_IMAGE) {
-                        throw new SecurityException("Access denied. Only featured images are publicly accessible.");
+                    if (!currentUser.getRole().name().equals("ADMIN") && !currentUser.getId().equals(image.getUploaderId())) {
+                        throw new SecurityException("Access denied. Users can only view the status of their own images.");
                     }
-                    
-                    byte[] imageData = imageService.getImageFile(id);
-                    ByteArrayResource resource = new ByteArrayResource(imageData);
-                    
-                    return ResponseEntity.ok()
-                            .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + image.getFileName() + "\"")
-                            .contentType(MediaType.parseMediaType(image.getContentType()))
-                            .body(resource);
+                    return ResponseEntity.ok(image);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Get image file by ID (public access for featured images only)
+     * With ?w= the smallest stored variant at least that wide is served, e.g. a thumbnail for avatars.
+     * The file is streamed from disk, never loaded whole; stored files never change, so responses
+     * carry an ETag and Last-Modified for 304s, may be cached as immutable, and honour Range requests.
+     */
+    @GetMapping("/{id}/file")
+    public ResponseEntity<Resource> getImageFile(@PathVariable Long id,
+                                                 @RequestParam(value = "w", required = false) Integer width) {
+        log.info("Fetching image file by ID: {}", id);
+        // Only allow public access to featured images; the service refuses any other type
+        ImageFile file = imageService.getImageFile(id, ImageType.FEATURED_IMAGE, width);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.fileName() + "\"")
+                .contentType(MediaType.parseMediaType(file.contentType()))
+                .eTag(file.etag())
+                .lastModified(file.lastModified())
+                .cacheControl(CacheControl.maxAge(IMAGE_FILE_MAX_AGE).cachePublic().immutable())
+                .body(file.resource());
+    }
+
     /**
      * Get user's profile picture (authenticated users only)
      * Users can only view their own profile pictures, admins can view any.
@@ -164,16 +188,7 @@ public class ImageController {
     @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MODERATOR')")
     public ResponseEntity<ImageStatsResponse> getImageStats(@PathVariable Long uploaderId) {
         log.info("Fetching image statistics for uploader: {}", uploaderId);
-        long totalImages = imageService.countImagesByUploaderId(uploaderId);
-        long totalStorage = imageService.getTotalStorageUsedByUploaderId(uploaderId);
-        
-        ImageStatsResponse stats = ImageStatsResponse.builder()
-                .uploaderId(uploaderId)
-                .totalImages(totalImages)
-                .totalStorageBytes(totalStorage)
-                .build();
-        
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(imageService.getImageStats(uploaderId));
     }
 
     /**
@@ -193,4 +208,10 @@ public class ImageController {
         
         return ResponseEntity.ok(stats);
     }
-} 
\ No newline at end of file
+
+    private static ResponseEntity<ImageResponse> accepted(ImageResponse image) {
+        return ResponseEntity.accepted()
+                .location(URI.create(Constants.IMAGES_PATH + "/" + image.getId() + "/status"))
+                .body(image);
+    }
+}
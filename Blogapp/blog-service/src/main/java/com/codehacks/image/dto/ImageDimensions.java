@@ -0,0 +1,11 @@
+package com.codehacks.image.dto;
+
+/**
+ * Pixel size of an image, as read from its header or of a written file.
+ */
+public record ImageDimensions(int width, int height) {
+
+    public boolean fitsWithin(int maxWidth, int maxHeight) {
+        return width <= maxWidth && height <= maxHeight;
+    }
+}
@@ -0,0 +1,18 @@
+package com.codehacks.image.dto;
+
+import com.codehacks.image.model.ImageType;
+import org.springframework.core.io.Resource;
+
+import java.time.Instant;
+
+/**
+ * A stored image file (the image itself or one of its variants) and what is needed to serve it
+ * with validators: the file is never rewritten, so its size and modification time identify it.
+ */
+public record ImageFile(Resource resource, String fileName, String contentType, ImageType imageType,
+                        long contentLength, Instant lastModified) {
+
+    public String etag() {
+        return "\"" + Long.toHexString(lastModified.toEpochMilli()) + "-" + Long.toHexString(contentLength) + "\"";
+    }
+}
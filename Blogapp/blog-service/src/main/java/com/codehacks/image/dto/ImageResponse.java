@@ -1,6 +1,7 @@
 package com.codehacks.image.dto;
 
 import com.codehacks.image.model.Image;
+import com.codehacks.image.model.ImageStatus;
 import com.codehacks.image.model.ImageType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -32,6 +33,7 @@ public class ImageResponse {
     private String altText;
     private String description;
     private Boolean isActive;
+    private ImageStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -51,6 +53,7 @@ public class ImageResponse {
                 .altText(image.getAltText())
                 .description(image.getDescription())
                 .isActive(image.getIsActive())
+                .status(image.getStatus())
                 .createdAt(image.getCreatedAt())
                 .updatedAt(image.getUpdatedAt())
                 .build();
@@ -1,10 +1,13 @@
 package com.codehacks.image.dto;
 
+import com.codehacks.image.model.ImageType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,4 +16,5 @@ public class ImageStatsResponse {
     private Long uploaderId;
     private Long totalImages;
     private Long totalStorageBytes;
+    private Map<ImageType, Long> imagesByType;
 } 
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.codehacks.image.dto;
+
+import java.nio.file.Path;
+
+/**
+ * An upload streamed to a temp file, with the hex SHA-256 of its bytes computed on the way.
+ */
+public record SpooledUpload(Path path, String sha256) {
+}
@@ -0,0 +1,12 @@
+package com.codehacks.image.dto;
+
+import org.springframework.core.io.Resource;
+
+import java.time.Instant;
+
+/**
+ * A file read back from image storage: its content, opened only when it is streamed, and the size
+ * and modification time the storage reports for it.
+ */
+public record StoredFile(Resource resource, long contentLength, Instant lastModified) {
+}
@@ -0,0 +1,9 @@
+package com.codehacks.image.dto;
+
+import java.time.Instant;
+
+/**
+ * A key found in image storage and when the file under it was last written.
+ */
+public record StoredKey(String key, Instant lastModified) {
+}
@@ -0,0 +1,83 @@
+package com.codehacks.image.model;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stored image content, addressed by the SHA-256 of the uploaded bytes and the stored format.
+ * Every image uploaded with the same content references the same blob, so it is processed and
+ * stored once; refCount counts the active images referencing it.
+ */
+@Entity
+@Table(name = "image_blobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // Hex SHA-256 of the upload; null for images stored before hashing
+
+    @Column(nullable = false)
+    private String format; // Stored image format (file extension)
+
+    @Column(name = "file_path", nullable = false)
+    private String filePath; // Path to the stored file
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize; // Stored file size in bytes
+
+    @Column(nullable = false)
+    private Integer width; // Stored width in pixels
+
+    @Column(nullable = false)
+    private Integer height; // Stored height in pixels
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImageStatus status; // PENDING until the image workers have written the file
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount; // Images attached to this content (inactive ones until the collector releases them)
+
+    @ElementCollection
+    @CollectionTable(name = "image_variants", joinColumns = @JoinColumn(name = "blob_id"))
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<ImageVariant> variants = new ArrayList<>(); // Smaller widths generated once per content
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
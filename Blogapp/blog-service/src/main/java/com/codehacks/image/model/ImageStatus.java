@@ -0,0 +1,21 @@
+package com.codehacks.image.model;
+
+/**
+ * Processing state of an uploaded image.
+ */
+public enum ImageStatus {
+    /**
+     * Stored as uploaded and waiting for the image workers
+     */
+    PENDING,
+
+    /**
+     * Processed; the stored file can be served
+     */
+    READY,
+
+    /**
+     * Processing failed or was lost; the image has no servable file
+     */
+    FAILED
+}
@@ -0,0 +1,31 @@
+package com.codehacks.image.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A downscaled copy of an image, stored next to it and served for requests asking for a smaller width.
+ */
+@Embeddable
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariant {
+
+    @Column(nullable = false)
+    private Integer width; // Variant width in pixels
+
+    @Column(nullable = false)
+    private Integer height; // Variant height in pixels
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize; // File size in bytes
+
+    @Column(name = "file_path", nullable = false)
+    private String filePath; // Path to the stored variant file
+}
@@ -0,0 +1,49 @@
+package com.codehacks.image.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Denormalized image usage of an uploader: active images, per type, and the bytes they take. Maintained
+ * on upload, processing and deactivation, so stats and quota checks never scan the images table.
+ */
+@Entity
+@Table(name = "uploader_image_usage")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploaderImageUsage {
+
+    @Id
+    @Column(name = "uploader_id")
+    private Long uploaderId;
+
+    @Column(name = "image_count", nullable = false)
+    private long imageCount;
+
+    @Column(name = "total_bytes", nullable = false)
+    private long totalBytes;
+
+    @Column(name = "profile_pictures", nullable = false)
+    private long profilePictures;
+
+    @Column(name = "featured_images", nullable = false)
+    private long featuredImages;
+
+    /**
+     * Active images of the given type
+     */
+    public long countOf(ImageType imageType) {
+        return switch (imageType) {
+            case PROFILE_PICTURE -> profilePictures;
+            case FEATURED_IMAGE -> featuredImages;
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.codehacks.image.repository;
+
+import com.codehacks.image.model.ImageBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for content-addressed image blobs.
+ */
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, Long> {
+
+    /**
+     * Find the blob stored for the given content
+     */
+    Optional<ImageBlob> findByContentHashAndFormat(String contentHash, String format);
+
+    /**
+     * Take a reference to the blob for the given content: inserts it as PENDING at filePath when the
+     * content is new, otherwise increments its reference count. A FAILED blob is taken over as if new,
+     * so after this call the blob's file path equals filePath exactly when the caller must process it.
+     * The upsert locks the blob row until the caller's transaction ends.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (content_hash, format, file_path, file_size, width, height, status, " +
+            "ref_count, created_at, updated_at) " +
+            "VALUES (:contentHash, :format, :filePath, :fileSize, :width, :height, 'PENDING', 1, LOCALTIMESTAMP, LOCALTIMESTAMP) " +
+            "ON CONFLICT (content_hash, format) DO UPDATE SET " +
+            "ref_count = image_blobs.ref_count + 1, " +
+            "file_path = CASE WHEN image_blobs.status = 'FAILED' THEN EXCLUDED.file_path ELSE image_blobs.file_path END, " +
+            "file_size = CASE WHEN image_blobs.status = 'FAILED' THEN EXCLUDED.file_size ELSE image_blobs.file_size END, " +
+            "width = CASE WHEN image_blobs.status = 'FAILED' THEN EXCLUDED.width ELSE image_blobs.width END, " +
+            "height = CASE WHEN image_blobs.status = 'FAILED' THEN EXCLUDED.height ELSE image_blobs.height END, " +
+            "status = CASE WHEN image_blobs.status = 'FAILED' THEN 'PENDING' ELSE image_blobs.status END, " +
+            "updated_at = LOCALTIMESTAMP", nativeQuery = true)
+    int acquire(@Param("contentHash") String contentHash, @Param("format") String format,
+                @Param("filePath") String filePath, @Param("fileSize") long fileSize,
+                @Param("width") int width, @Param("height") int height);
+
+    /**
+     * Mark blobs still pending since before the cutoff as failed (their processing job was lost)
+     */
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.status = com.codehacks.image.model.ImageStatus.FAILED, b.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE b.status = com.codehacks.image.model.ImageStatus.PENDING AND b.updatedAt < :cutoff")
+    int failStalePending(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Ids after afterId of settled blobs no image references any more, in id order (keyset page)
+     */
+    @Query("SELECT b.id FROM ImageBlob b WHERE b.refCount = 0 " +
+            "AND b.status <> com.codehacks.image.model.ImageStatus.PENDING AND b.id > :afterId ORDER BY b.id")
+    List<Long> findUnreferencedIds(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Find a blob with its variants, in one query
+     */
+    @EntityGraph(attributePaths = "variants")
+    Optional<ImageBlob> findWithVariantsById(Long id);
+
+    /**
+     * Delete the blob if it is still unreferenced and settled; its variant rows go with it. Returns 0
+     * when an upload took a new reference in the meantime.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM image_blobs WHERE id = :id AND ref_count = 0 AND status <> 'PENDING'", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("id") Long id);
+
+    /**
+     * Those of the given storage keys that a blob or one of its variants is stored under
+     */
+    @Query(value = "SELECT file_path FROM image_blobs WHERE file_path IN (:keys) " +
+            "UNION SELECT file_path FROM image_variants WHERE file_path IN (:keys)", nativeQuery = true)
+    List<String> findKnownKeys(@Param("keys") Collection<String> keys);
+}
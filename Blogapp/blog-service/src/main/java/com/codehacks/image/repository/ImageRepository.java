@@ -2,14 +2,20 @@ package com.codehacks.image.repository;
 
 import com.codehacks.image.model.Image;
 import com.codehacks.image.model.ImageType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for database operations on images.
@@ -43,6 +49,12 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
     @Query("SELECT SUM(i.fileSize) FROM Image i WHERE i.uploader.id = :uploaderId AND i.isActive = true")
     Long getTotalStorageUsedByUploaderId(@Param("uploaderId") Long uploaderId);
 
+    /**
+     * Find an image with its stored content and variants, in one query
+     */
+    @EntityGraph(attributePaths = {"blob", "blob.variants"})
+    Optional<Image> findWithVariantsById(Long id);
+
     /**
      * Find images by file name (for duplicate detection)
      */
@@ -64,4 +76,91 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
      */
     @Query("SELECT i FROM Image i WHERE i.fileSize > :minSize AND i.isActive = true ORDER BY i.fileSize DESC")
     List<Image> findLargeImages(@Param("minSize") Long minSize);
-} 
\ No newline at end of file
+
+    /**
+     * Mark images still pending since before the cutoff as failed (their processing job was lost)
+     */
+    @Modifying
+    @Query("UPDATE Image i SET i.status = com.codehacks.image.model.ImageStatus.FAILED, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.status = com.codehacks.image.model.ImageStatus.PENDING AND i.updatedAt < :cutoff")
+    int failStalePending(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Mark the pending images of a processed blob READY with the stored file's size and dimensions
+     */
+    @Modifying
+    @Query("UPDATE Image i SET i.status = com.codehacks.image.model.ImageStatus.READY, i.width = :width, " +
+            "i.height = :height, i.fileSize = :fileSize, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.blob.id = :blobId AND i.status = com.codehacks.image.model.ImageStatus.PENDING")
+    int markProcessed(@Param("blobId") Long blobId, @Param("width") int width, @Param("height") int height,
+                      @Param("fileSize") long fileSize);
+
+    /**
+     * Mark the pending images of a blob that could not be processed FAILED
+     */
+    @Modifying
+    @Query("UPDATE Image i SET i.status = com.codehacks.image.model.ImageStatus.FAILED, i.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE i.blob.id = :blobId AND i.status = com.codehacks.image.model.ImageStatus.PENDING")
+    int markFailed(@Param("blobId") Long blobId);
+
+    /**
+     * Profile pictures, with their uploaders, still waiting on a blob being processed. Inactive ones are
+     * included: filtering on is_active would let the planner walk the whole active profile picture
+     * index instead of looking the blob up in idx_image_pending_blob.
+     */
+    @Query("SELECT i FROM Image i JOIN FETCH i.uploader WHERE i.blob.id = :blobId " +
+            "AND i.imageType = com.codehacks.image.model.ImageType.PROFILE_PICTURE " +
+            "AND i.status = com.codehacks.image.model.ImageStatus.PENDING")
+    List<Image> findPendingProfilePicturesByBlobId(@Param("blobId") Long blobId);
+
+    /**
+     * Whether the uploader has an active READY profile picture newer than the given image
+     */
+    @Query("SELECT count(n) > 0 FROM Image n WHERE n.uploader.id = :uploaderId " +
+            "AND n.imageType = com.codehacks.image.model.ImageType.PROFILE_PICTURE AND n.isActive = true " +
+            "AND n.status = com.codehacks.image.model.ImageStatus.READY AND n.id > :imageId")
+    boolean existsNewerReadyProfilePicture(@Param("uploaderId") Long uploaderId, @Param("imageId") Long imageId);
+
+    /**
+     * Ids after afterId of active profile pictures that a newer READY profile picture of the same user
+     * replaces, in id order (keyset page)
+     */
+    @Query("SELECT i.id FROM Image i WHERE i.imageType = com.codehacks.image.model.ImageType.PROFILE_PICTURE " +
+            "AND i.isActive = true AND i.id > :afterId AND EXISTS (SELECT 1 FROM Image n WHERE n.uploader = i.uploader " +
+            "AND n.imageType = com.codehacks.image.model.ImageType.PROFILE_PICTURE AND n.isActive = true " +
+            "AND n.id > i.id AND n.status = com.codehacks.image.model.ImageStatus.READY) ORDER BY i.id")
+    List<Long> findSupersededProfilePictureIds(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Ids after afterId of active images whose processing FAILED, in id order (keyset page)
+     */
+    @Query("SELECT i.id FROM Image i WHERE i.status = com.codehacks.image.model.ImageStatus.FAILED " +
+            "AND i.isActive = true AND i.id > :afterId ORDER BY i.id")
+    List<Long> findFailedImageIds(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Soft delete the given images; already inactive ones are left untouched
+     */
+    @Modifying
+    @Query("UPDATE Image i SET i.isActive = false, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id IN :ids AND i.isActive = true")
+    int deactivate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Ids after afterId of inactive images still holding a reference to their blob, in id order (keyset page)
+     */
+    @Query("SELECT i.id FROM Image i WHERE i.isActive = false AND i.blob IS NOT NULL AND i.id > :afterId ORDER BY i.id")
+    List<Long> findReleasableImageIds(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Detach the given inactive images from their blobs and drop the references they held, so blobs
+     * no active image needs reach a reference count of zero. Returns the number of blobs released.
+     */
+    @Modifying
+    @Query(value = "WITH released AS (" +
+            "SELECT id, blob_id FROM images WHERE id IN (:ids) AND is_active = false AND blob_id IS NOT NULL FOR UPDATE), " +
+            "detached AS (UPDATE images SET blob_id = NULL, updated_at = LOCALTIMESTAMP WHERE id IN (SELECT id FROM released)) " +
+            "UPDATE image_blobs b SET ref_count = b.ref_count - r.refs, updated_at = LOCALTIMESTAMP " +
+            "FROM (SELECT blob_id, count(*) AS refs FROM released GROUP BY blob_id) r WHERE b.id = r.blob_id",
+            nativeQuery = true)
+    int releaseBlobs(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,66 @@
+package com.codehacks.image.repository;
+
+import com.codehacks.image.model.UploaderImageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * Repository interface for per-uploader image usage counters.
+ */
+@Repository
+public interface UploaderImageUsageRepository extends JpaRepository<UploaderImageUsage, Long> {
+
+    /**
+     * Count one more image of bytes for the uploader, creating the row on first use, unless that would
+     * take the uploader past maxImages or maxBytes. Returns 0 when over quota; the row lock taken keeps
+     * concurrent uploads of the same uploader from both passing the check.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO uploader_image_usage (uploader_id, image_count, total_bytes, profile_pictures, featured_images) " +
+            "SELECT :uploaderId, 1, :bytes, :profilePictures, :featuredImages WHERE 1 <= :maxImages AND :bytes <= :maxBytes " +
+            "ON CONFLICT (uploader_id) DO UPDATE SET " +
+            "image_count = uploader_image_usage.image_count + 1, " +
+            "total_bytes = uploader_image_usage.total_bytes + :bytes, " +
+            "profile_pictures = uploader_image_usage.profile_pictures + :profilePictures, " +
+            "featured_images = uploader_image_usage.featured_images + :featuredImages " +
+            "WHERE uploader_image_usage.image_count + 1 <= :maxImages " +
+            "AND uploader_image_usage.total_bytes + :bytes <= :maxBytes", nativeQuery = true)
+    int addWithinQuota(@Param("uploaderId") Long uploaderId, @Param("profilePictures") int profilePictures,
+                       @Param("featuredImages") int featuredImages, @Param("bytes") long bytes,
+                       @Param("maxImages") long maxImages, @Param("maxBytes") long maxBytes);
+
+    /**
+     * Take the given images out of their uploaders' usage; call in the transaction that deactivates
+     * them. Images already inactive are skipped, and the images stay locked until that transaction ends.
+     */
+    @Modifying
+    @Query(value = "WITH removed AS (" +
+            "SELECT uploader_id, image_type, file_size FROM images WHERE id IN (:ids) AND is_active = true FOR UPDATE) " +
+            "UPDATE uploader_image_usage u SET " +
+            "image_count = GREATEST(u.image_count - r.images, 0), " +
+            "total_bytes = GREATEST(u.total_bytes - r.bytes, 0), " +
+            "profile_pictures = GREATEST(u.profile_pictures - r.profile_pictures, 0), " +
+            "featured_images = GREATEST(u.featured_images - r.featured_images, 0) " +
+            "FROM (SELECT uploader_id, count(*) AS images, sum(file_size) AS bytes, " +
+            "count(*) FILTER (WHERE image_type = 'PROFILE_PICTURE') AS profile_pictures, " +
+            "count(*) FILTER (WHERE image_type = 'FEATURED_IMAGE') AS featured_images " +
+            "FROM removed GROUP BY uploader_id) r WHERE u.uploader_id = r.uploader_id", nativeQuery = true)
+    int subtractImages(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Replace the upload size counted for the active pending images of a blob with its processed size;
+     * call in the transaction that marks them processed, before it does.
+     */
+    @Modifying
+    @Query(value = "WITH processed AS (" +
+            "SELECT uploader_id, file_size FROM images WHERE blob_id = :blobId AND status = 'PENDING' AND is_active = true FOR UPDATE) " +
+            "UPDATE uploader_image_usage u SET total_bytes = GREATEST(u.total_bytes + p.delta, 0) " +
+            "FROM (SELECT uploader_id, sum(:fileSize - file_size) AS delta FROM processed GROUP BY uploader_id) p " +
+            "WHERE u.uploader_id = p.uploader_id", nativeQuery = true)
+    int adjustProcessedBytes(@Param("blobId") Long blobId, @Param("fileSize") long fileSize);
+}
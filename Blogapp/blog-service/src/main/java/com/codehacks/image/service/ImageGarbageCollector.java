@@ -0,0 +1,217 @@
+package com.codehacks.image.service;
+
+import com.codehacks.image.dto.StoredKey;
+import com.codehacks.image.model.ImageBlob;
+import com.codehacks.image.model.ImageVariant;
+import com.codehacks.image.repository.ImageBlobRepository;
+import com.codehacks.image.repository.ImageRepository;
+import com.codehacks.image.repository.UploaderImageUsageRepository;
+import com.codehacks.image.storage.ImageStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Reclaims the storage of images nobody can reach any more, in five steps per run:
+ * <ol>
+ *     <li>profile pictures replaced by a newer READY one of the same user are deactivated, and taken out
+ *     of their uploader's usage counters;</li>
+ *     <li>images whose processing FAILED (undecodable uploads, jobs lost to a restart) are deactivated
+ *     the same way, so they stop counting toward their uploader's quota;</li>
+ *     <li>inactive images are detached from their blobs, dropping the references they held;</li>
+ *     <li>blobs left without references are deleted, then their files and variant files;</li>
+ *     <li>stored files no blob or variant points at (lost jobs, interrupted writes) are deleted once
+ *     older than app.image.gc.orphan-file-grace-ms, which must exceed the time a job takes to record
+ *     the files it stores.</li>
+ * </ol>
+ * Every step walks its rows in keyset pages of app.image.gc.batch-size, each in a short transaction,
+ * sleeping app.image.gc.batch-pause-ms between pages so a large backlog never holds locks or saturates
+ * the disk. Each update re-checks its condition, so runs on several replicas at once are harmless.
+ * Files are only deleted after the rows pointing at them are gone; a failed delete leaves an orphan for
+ * the next run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageGarbageCollector {
+
+    private final ImageRepository imageRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final UploaderImageUsageRepository uploaderImageUsageRepository;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.image.gc.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.image.gc.batch-pause-ms:100}")
+    private long batchPauseMillis;
+
+    @Value("${app.image.gc.orphan-file-grace-ms:86400000}")
+    private long orphanFileGraceMillis;
+
+    @Scheduled(initialDelayString = "${app.image.gc.initial-delay-ms:300000}",
+            fixedDelayString = "${app.image.gc.interval-ms:3600000}")
+    public void collect() {
+        try {
+            int superseded = deactivateSupersededProfilePictures();
+            int failed = deactivateFailedImages();
+            int released = releaseInactiveImages();
+            int reclaimed = deleteUnreferencedBlobs();
+            int orphans = deleteOrphanedFiles();
+            log.info("Image GC: deactivated {} superseded profile pictures and {} failed images, released {} blobs, "
+                    + "deleted {} blobs and {} orphaned files", superseded, failed, released, reclaimed, orphans);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Image GC interrupted");
+        }
+    }
+
+    int deactivateSupersededProfilePictures() throws InterruptedException {
+        return deactivate(imageRepository::findSupersededProfilePictureIds);
+    }
+
+    int deactivateFailedImages() throws InterruptedException {
+        return deactivate(imageRepository::findFailedImageIds);
+    }
+
+    /**
+     * Deactivate the pages of images found by {@code finder}, taking them out of their uploaders' usage
+     * in the same transaction.
+     */
+    private int deactivate(BiFunction<Long, Limit, List<Long>> finder) throws InterruptedException {
+        int deactivated = 0;
+        long afterId = 0;
+        List<Long> ids;
+        while (!(ids = finder.apply(afterId, Limit.of(batchSize))).isEmpty()) {
+            List<Long> batch = ids;
+            deactivated += inTransaction(() -> {
+                uploaderImageUsageRepository.subtractImages(batch);
+                return imageRepository.deactivate(batch);
+            });
+            afterId = ids.get(ids.size() - 1);
+            pause();
+        }
+        return deactivated;
+    }
+
+    int releaseInactiveImages() throws InterruptedException {
+        int released = 0;
+        long afterId = 0;
+        List<Long> ids;
+        while (!(ids = imageRepository.findReleasableImageIds(afterId, Limit.of(batchSize))).isEmpty()) {
+            List<Long> batch = ids;
+            released += inTransaction(() -> imageRepository.releaseBlobs(batch));
+            afterId = ids.get(ids.size() - 1);
+            pause();
+        }
+        return released;
+    }
+
+    int deleteUnreferencedBlobs() throws InterruptedException {
+        int deleted = 0;
+        long afterId = 0;
+        List<Long> ids;
+        while (!(ids = imageBlobRepository.findUnreferencedIds(afterId, Limit.of(batchSize))).isEmpty()) {
+            for (Long id : ids) {
+                List<String> keys = transactionTemplate.execute(status -> deleteBlob(id));
+                if (keys != null && !keys.isEmpty()) {
+                    keys.forEach(this::deleteFile);
+                    deleted++;
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+            pause();
+        }
+        return deleted;
+    }
+
+    /**
+     * The keys of the blob's files when its row was deleted; none when it was already gone or an upload
+     * referenced it again.
+     */
+    private List<String> deleteBlob(Long id) {
+        return imageBlobRepository.findWithVariantsById(id)
+                .map(blob -> imageBlobRepository.deleteIfUnreferenced(id) == 1 ? keysOf(blob) : List.<String>of())
+                .orElse(List.of());
+    }
+
+    private static List<String> keysOf(ImageBlob blob) {
+        List<String> keys = new ArrayList<>();
+        keys.add(blob.getFilePath());
+        blob.getVariants().stream().map(ImageVariant::getFilePath).forEach(keys::add);
+        return keys;
+    }
+
+    int deleteOrphanedFiles() throws InterruptedException {
+        Instant cutoff = Instant.now().minus(Duration.ofMillis(orphanFileGraceMillis));
+        int deleted = 0;
+        try (Stream<StoredKey> stored = imageStorage.list()) {
+            Iterator<String> candidates = stored
+                    .filter(storedKey -> storedKey.lastModified().isBefore(cutoff))
+                    .map(StoredKey::key)
+                    .iterator();
+            List<String> batch = new ArrayList<>(batchSize);
+            while (candidates.hasNext()) {
+                batch.add(candidates.next());
+                if (batch.size() == batchSize || !candidates.hasNext()) {
+                    deleted += deleteUnknown(batch);
+                    batch.clear();
+                    pause();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image GC could not finish the orphaned file sweep: {}", e.getMessage());
+        }
+        return deleted;
+    }
+
+    private int deleteUnknown(List<String> keys) {
+        Set<String> known = new HashSet<>(imageBlobRepository.findKnownKeys(keys));
+        int deleted = 0;
+        for (String key : keys) {
+            if (!known.contains(key) && deleteFile(key)) {
+                log.debug("Deleted orphaned image file {}", key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private boolean deleteFile(String key) {
+        try {
+            imageStorage.delete(key);
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to delete image file {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private int inTransaction(IntSupplier update) {
+        Integer updated = transactionTemplate.execute(status -> update.getAsInt());
+        return updated != null ? updated : 0;
+    }
+
+    private void pause() throws InterruptedException {
+        if (batchPauseMillis > 0) {
+            Thread.sleep(batchPauseMillis);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.codehacks.image.service;
+
+import com.codehacks.image.dto.ImageDimensions;
+import com.codehacks.image.model.Image;
+import com.codehacks.image.model.ImageBlob;
+import com.codehacks.image.model.ImageStatus;
+import com.codehacks.image.model.ImageVariant;
+import com.codehacks.image.repository.ImageBlobRepository;
+import com.codehacks.image.repository.ImageRepository;
+import com.codehacks.image.repository.UploaderImageUsageRepository;
+import com.codehacks.image.storage.ImageStorage;
+import com.codehacks.user.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Processes uploaded images off the request thread. New content is saved as a PENDING blob and handed
+ * to a fixed pool of workers (one per core by default) that resize and encode the spooled file next to
+ * it, put the result in image storage, then mark the blob and every image waiting on it READY or FAILED
+ * in a short transaction of their own, so no connection is held while an image is decoded. Each job
+ * also stores the configured smaller variant widths (from the already bounded file, not the upload), so
+ * they are generated once per content. Marking images READY also moves their uploaders' usage counters
+ * from the upload size to the stored size, and points each uploader of a profile picture among them
+ * at it, unless a newer profile picture of theirs is already READY.
+ *
+ * The queue is bounded: when it is full the uploading request processes its own image, which slows
+ * clients down under load instead of failing their uploads. Jobs only live in memory, so blobs and images
+ * left PENDING by a restart are marked FAILED once they are older than app.image.processing.stale-after-ms;
+ * the next upload of the same content processes it again. FAILED images count toward their uploaders'
+ * usage until ImageGarbageCollector deactivates them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageProcessingQueue {
+
+    private final ImageRepository imageRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final UploaderImageUsageRepository uploaderImageUsageRepository;
+    private final ImageProcessingService imageProcessingService;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.image.processing.workers:0}")
+    private int workers;
+
+    @Value("${app.image.processing.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.image.processing.stale-after-ms:900000}")
+    private long staleAfterMillis;
+
+    @Value("${app.image.variants.widths:150,480}")
+    private int[] variantWidths = {};
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-worker-"));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Image workers still busy at shutdown; {} queued images stay PENDING", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue the spooled upload of a PENDING blob. The job stores the image under {@code key} within
+     * maxWidth x maxHeight and deletes the spooled file when it is done.
+     */
+    public void submit(Long blobId, Path spooled, String key, String format, int maxWidth, int maxHeight) {
+        Runnable job = () -> process(blobId, spooled, key, format, maxWidth, maxHeight);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            log.info("Image queue full, processing blob {} on the request thread", blobId);
+            job.run();
+        }
+    }
+
+    void process(Long blobId, Path spooled, String key, String format, int maxWidth, int maxHeight) {
+        Path processed = spooled.resolveSibling(spooled.getFileName() + "." + format);
+        try {
+            ImageDimensions dimensions = imageProcessingService.writeBounded(spooled, processed, format, maxWidth, maxHeight);
+            long fileSize = Files.size(processed);
+            List<ImageVariant> variants = writeVariants(processed, key, format, dimensions);
+            imageStorage.store(key, processed);
+            complete(blobId, blob -> {
+                blob.setWidth(dimensions.width());
+                blob.setHeight(dimensions.height());
+                blob.setFileSize(fileSize);
+                blob.getVariants().addAll(variants);
+                blob.setStatus(ImageStatus.READY);
+            }, () -> {
+                List<Image> profilePictures = imageRepository.findPendingProfilePicturesByBlobId(blobId);
+                uploaderImageUsageRepository.adjustProcessedBytes(blobId, fileSize);
+                imageRepository.markProcessed(blobId, dimensions.width(), dimensions.height(), fileSize);
+                profilePictures.forEach(this::applyProfilePicture);
+            });
+            log.info("Blob {} processed: {}x{}, {} bytes", blobId, dimensions.width(), dimensions.height(), fileSize);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to process blob {}: {}", blobId, e.getMessage());
+            complete(blobId, blob -> blob.setStatus(ImageStatus.FAILED), () -> imageRepository.markFailed(blobId));
+        } finally {
+            deleteWorkFile(spooled);
+            deleteWorkFile(processed);
+        }
+    }
+
+    /**
+     * Store a copy of the processed image for every configured width below its own, keyed after the
+     * image with a _w{width} suffix.
+     */
+    private List<ImageVariant> writeVariants(Path processed, String key, String format, ImageDimensions dimensions)
+            throws IOException {
+        List<ImageVariant> variants = new ArrayList<>();
+        for (int width : IntStream.of(variantWidths).distinct().sorted().toArray()) {
+            if (width >= dimensions.width()) {
+                break;
+            }
+            String variantKey = FilenameUtils.removeExtension(key) + "_w" + width + "." + format;
+            Path variantFile = processed.resolveSibling(processed.getFileName() + "_w" + width + "." + format);
+            try {
+                ImageDimensions written = imageProcessingService.writeBounded(processed, variantFile, format, width,
+                        Integer.MAX_VALUE);
+                long fileSize = Files.size(variantFile);
+                imageStorage.store(variantKey, variantFile);
+                variants.add(ImageVariant.builder()
+                        .width(written.width())
+                        .height(written.height())
+                        .fileSize(fileSize)
+                        .filePath(variantKey)
+                        .build());
+            } finally {
+                deleteWorkFile(variantFile);
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Point the uploader at a profile picture that just became READY. An older picture finishing
+     * after a newer one leaves the user on the newer one, and a deleted picture is never applied.
+     */
+    private void applyProfilePicture(Image picture) {
+        User uploader = picture.getUploader();
+        if (Boolean.FALSE.equals(picture.getIsActive())
+                || imageRepository.existsNewerReadyProfilePicture(uploader.getId(), picture.getId())) {
+            return;
+        }
+        uploader.setProfilePictureUrl(picture.getFilePath());
+        uploader.setProfilePictureFilename(picture.getFileName());
+    }
+
+    private static void deleteWorkFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete image work file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Apply the outcome to the blob if it is still PENDING, then to its pending images. The blob row is
+     * written first: an upload referencing the blob holds its row lock until it commits, so the image
+     * update always sees that upload's image.
+     */
+    private void complete(Long blobId, Consumer<ImageBlob> blobUpdate, Runnable imagesUpdate) {
+        transactionTemplate.executeWithoutResult(status -> imageBlobRepository.findById(blobId)
+                .filter(blob -> blob.getStatus() == ImageStatus.PENDING)
+                .ifPresent(blob -> {
+                    blobUpdate.accept(blob);
+                    imageBlobRepository.flush();
+                    imagesUpdate.run();
+                }));
+    }
+
+    @Scheduled(fixedDelayString = "${app.image.processing.stale-check-interval-ms:60000}")
+    public void failStaleJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMillis));
+        Integer failed = transactionTemplate.execute(status -> {
+            imageBlobRepository.failStalePending(cutoff);
+            return imageRepository.failStalePending(cutoff);
+        });
+        if (failed != null && failed > 0) {
+            log.warn("Marked {} images FAILED after pending since before {}", failed, cutoff);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.codehacks.image.service;
+
+import com.codehacks.image.dto.ImageDimensions;
+import com.codehacks.image.dto.SpooledUpload;
+import lombok.extern.slf4j.Slf4j;
+import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+
+/**
+ * Streaming image pipeline for uploads. The multipart body is spooled to a temp file and hashed on the
+ * way, dimensions come from the image header, and images larger than the target bounds are decoded
+ * with source subsampling, so the decoded raster is at most about twice the bounds per side whatever
+ * the size of the source.
+ * Images that already fit and are in the requested format are copied as-is without decoding.
+ */
+@Service
+@Slf4j
+public class ImageProcessingService {
+
+    @Value("${app.image.upload.tmp-path:${java.io.tmpdir}}")
+    private String tmpPath;
+
+    /**
+     * Stream the upload into a new temp file, computing its SHA-256; the caller deletes the file when done.
+     */
+    public SpooledUpload spool(MultipartFile file) throws IOException {
+        Path tmpDir = Paths.get(tmpPath);
+        Files.createDirectories(tmpDir);
+        Path spooled = Files.createTempFile(tmpDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new SpooledUpload(spooled, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Read width and height from the image header without decoding any pixels.
+     */
+    public ImageDimensions readDimensions(Path source) throws IOException {
+        try (ImageInputStream input = openImage(source)) {
+            ImageReader reader = readerFor(input);
+            try {
+                reader.setInput(input, true, true);
+                return new ImageDimensions(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Write the image at {@code source} to {@code target} in {@code format}, scaled down to fit within
+     * maxWidth x maxHeight with its aspect ratio kept. Returns the dimensions of the written image.
+     */
+    public ImageDimensions writeBounded(Path source, Path target, String format, int maxWidth, int maxHeight)
+            throws IOException {
+        try (ImageInputStream input = openImage(source)) {
+            ImageReader reader = readerFor(input);
+            try {
+                reader.setInput(input, true, true);
+                ImageDimensions original = new ImageDimensions(reader.getWidth(0), reader.getHeight(0));
+
+                if (original.fitsWithin(maxWidth, maxHeight) && isFormat(reader, format)) {
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    return original;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = subsamplingStep(original, maxWidth, maxHeight);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                BufferedImage decoded = reader.read(0, param);
+
+                BufferedImage bounded = decoded;
+                if (decoded.getWidth() > maxWidth || decoded.getHeight() > maxHeight) {
+                    log.info("Resizing image from {}x{} (decoded at 1/{}) to fit within {}x{}",
+                            original.width(), original.height(), step, maxWidth, maxHeight);
+                    bounded = Thumbnails.of(decoded)
+                            .size(maxWidth, maxHeight)
+                            .keepAspectRatio(true)
+                            .asBufferedImage();
+                }
+
+                if (!ImageIO.write(bounded, format, target.toFile())) {
+                    throw new IllegalArgumentException("Unsupported image format: " + format);
+                }
+                return new ImageDimensions(bounded.getWidth(), bounded.getHeight());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Largest whole-pixel subsampling step that still decodes at least as many pixels as the
+     * bounded image needs, so the final resize only ever scales down.
+     */
+    static int subsamplingStep(ImageDimensions original, int maxWidth, int maxHeight) {
+        double ratio = Math.max((double) original.width() / maxWidth, (double) original.height() / maxHeight);
+        return Math.max(1, (int) Math.floor(ratio));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static ImageInputStream openImage(Path source) throws IOException {
+        ImageInputStream input = ImageIO.createImageInputStream(source.toFile());
+        if (input == null) {
+            throw new IOException("Unable to open image file: " + source);
+        }
+        return input;
+    }
+
+    private static ImageReader readerFor(ImageInputStream input) {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IllegalArgumentException("Unable to read image file");
+        }
+        return readers.next();
+    }
+
+    private static boolean isFormat(ImageReader reader, String format) {
+        return Arrays.stream(reader.getOriginatingProvider().getFormatNames())
+                .anyMatch(name -> name.equalsIgnoreCase(format));
+    }
+}
@@ -1,6 +1,8 @@
 package com.codehacks.image.service;
 
+import com.codehacks.image.dto.ImageFile;
 import com.codehacks.image.dto.ImageResponse;
+import com.codehacks.image.dto.ImageStatsResponse;
 import com.codehacks.image.model.ImageType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -40,9 +42,11 @@ public interface ImageService {
     Page<ImageResponse> getAllImages(Pageable pageable);
 
     /**
-     * Get image file as byte array
+     * Get the stored file of an image, found with a single lookup; with a width, the smallest
+     * stored variant at least that wide. Images of any other type than the given one are refused
+     * before their status or file is looked at.
      */
-    byte[] getImageFile(Long id);
+    ImageFile getImageFile(Long id, ImageType imageType, Integer width);
 
     /**
      * Get user's profile picture
@@ -68,4 +72,9 @@ public interface ImageService {
      * Get total storage used by uploader
      */
     long getTotalStorageUsedByUploaderId(Long uploaderId);
+
+    /**
+     * Get an uploader's image count, storage used and images per type, from their usage counters
+     */
+    ImageStatsResponse getImageStats(Long uploaderId);
 } 
\ No newline at end of file
@@ -1,35 +1,47 @@
 package com.codehacks.image.service;
 
+import com.codehacks.image.dto.ImageDimensions;
+import com.codehacks.image.dto.ImageFile;
 import com.codehacks.image.dto.ImageResponse;
+import com.codehacks.image.dto.ImageStatsResponse;
+import com.codehacks.image.dto.SpooledUpload;
+import com.codehacks.image.dto.StoredFile;
 import com.codehacks.image.model.Image;
+import com.codehacks.image.model.ImageBlob;
+import com.codehacks.image.model.ImageStatus;
 import com.codehacks.image.model.ImageType;
+import com.codehacks.image.model.ImageVariant;
+import com.codehacks.image.model.UploaderImageUsage;
+import com.codehacks.image.repository.ImageBlobRepository;
 import com.codehacks.image.repository.ImageRepository;
+import com.codehacks.image.repository.UploaderImageUsageRepository;
+import com.codehacks.image.storage.ImageStorage;
 import com.codehacks.user.model.User;
 import com.codehacks.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.coobird.thumbnailator.Thumbnails;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -41,10 +53,13 @@ import java.util.stream.Collectors;
 public class ImageServiceImpl implements ImageService {
 
     private final ImageRepository imageRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final UploaderImageUsageRepository uploaderImageUsageRepository;
     private final UserRepository userRepository;
-
-    @Value("${app.image.upload.path:uploads/images}")
-    private String uploadPath;
+    private final ImageProcessingService imageProcessingService;
+    private final ImageProcessingQueue imageProcessingQueue;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.image.max.size:5242880}") // 5MB default
     private long maxFileSize;
@@ -55,12 +70,17 @@ public class ImageServiceImpl implements ImageService {
     @Value("${app.image.max.height:1080}")
     private int maxHeight;
 
+    @Value("${app.image.quota.max-images:1000}")
+    private long quotaMaxImages;
+
+    @Value("${app.image.quota.max-bytes:524288000}") // 500MB default
+    private long quotaMaxBytes;
+
     private static final List<String> ALLOWED_CONTENT_TYPES = List.of(
             "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"
     );
 
     @Override
-    @Transactional
     public ImageResponse uploadImage(MultipartFile file, ImageType imageType, String altText, String description, Long uploaderId) {
         log.info("Uploading image for user {} with type {}", uploaderId, imageType);
 
@@ -72,42 +92,16 @@ public class ImageServiceImpl implements ImageService {
         // Get user
         User uploader = userRepository.findById(uploaderId)
                 .orElseThrow(() -> new NoSuchElementException("User not found with ID: " + uploaderId));
+        checkQuota(uploaderId, file.getSize());
 
         try {
-            // Create upload directory if it doesn't exist
-            createUploadDirectory();
-
-            // Generate unique filename
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = FilenameUtils.getExtension(originalFileName);
-            String storedFileName = generateUniqueFileName(fileExtension);
-
-            // Process and save image
-            BufferedImage processedImage = processImage(file);
-            String filePath = saveImageToDisk(processedImage, storedFileName, fileExtension);
-
-            // Get image dimensions
-            int width = processedImage.getWidth();
-            int height = processedImage.getHeight();
-
-            // Create image entity
-            Image image = Image.builder()
-                    .fileName(originalFileName)
-                    .storedFileName(storedFileName)
-                    .filePath(filePath)
-                    .contentType(file.getContentType())
-                    .fileSize(file.getSize())
-                    .width(width)
-                    .height(height)
+            Image savedImage = acceptUpload(file, details -> imageRepository.save(details
                     .imageType(imageType)
                     .uploader(uploader)
                     .altText(altText)
                     .description(description)
-                    .isActive(true)
-                    .build();
-
-            Image savedImage = imageRepository.save(image);
-            log.info("Image uploaded successfully with ID: {}", savedImage.getId());
+                    .build()));
+            log.info("Image accepted for processing with ID: {}", savedImage.getId());
 
             return ImageResponse.fromEntity(savedImage);
 
@@ -118,7 +112,6 @@ public class ImageServiceImpl implements ImageService {
     }
 
     @Override
-    @Transactional
     public ImageResponse uploadProfilePicture(MultipartFile file, String altText, String description, Long userId) {
         log.info("Uploading profile picture for user {}", userId);
 
@@ -130,54 +123,32 @@ public class ImageServiceImpl implements ImageService {
         // Get user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NoSuchElementException("User not found with ID: " + userId));
+        checkQuota(userId, file.getSize());
 
         try {
-            // Create upload directory if it doesn't exist
-            createUploadDirectory();
-
-            // Generate unique filename
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = FilenameUtils.getExtension(originalFileName);
-            String storedFileName = generateUniqueFileName(fileExtension);
-
-            // Process and save image
-            BufferedImage processedImage = processImage(file);
-            String filePath = saveImageToDisk(processedImage, storedFileName, fileExtension);
-
-            // Get image dimensions
-            int width = processedImage.getWidth();
-            int height = processedImage.getHeight();
-
-            // Deactivate any existing profile pictures for this user
-            // Since we removed the repository method, we'll use a different approach
-            // We can either: 1) Store the profile picture ID in the User entity, or 2) Use a custom query
-            // For now, let's assume the user can only have one active profile picture at a time
-            // and we'll handle this by updating the user's profile picture URL directly
-
-            // Create new profile picture image entity
-            Image image = Image.builder()
-                    .fileName(originalFileName)
-                    .storedFileName(storedFileName)
-                    .filePath(filePath)
-                    .contentType(file.getContentType())
-                    .fileSize(file.getSize())
-                    .width(width)
-                    .height(height)
-                    .imageType(ImageType.PROFILE_PICTURE)
-                    .uploader(user)
-                    .altText(altText)
-                    .description(description)
-                    .isActive(true)
-                    .build();
-
-            Image savedImage = imageRepository.save(image);
-
-            // Update user's profile picture information
-            user.setProfilePictureUrl(filePath);
-            user.setProfilePictureFilename(originalFileName);
-            userRepository.save(user);
-
-            log.info("Profile picture uploaded successfully with ID: {} for user {}", savedImage.getId(), userId);
+            // Earlier profile pictures stay active until this one is READY; ImageGarbageCollector
+            // then deactivates them and reclaims their files
+
+            // Create new profile picture image entity; the user is pointed at it once it is READY,
+            // by ImageProcessingQueue when its content still has to be processed
+            Image savedImage = acceptUpload(file, details -> {
+                Image image = imageRepository.save(details
+                        .imageType(ImageType.PROFILE_PICTURE)
+                        .uploader(user)
+                        .altText(altText)
+                        .description(description)
+                        .build());
+
+                // Content already stored: update user's profile picture information now
+                if (image.getStatus() == ImageStatus.READY) {
+                    user.setProfilePictureUrl(image.getFilePath());
+                    user.setProfilePictureFilename(image.getFileName());
+                    userRepository.save(user);
+                }
+                return image;
+            });
+
+            log.info("Profile picture accepted for processing with ID: {} for user {}", savedImage.getId(), userId);
 
             return ImageResponse.fromEntity(savedImage);
 
@@ -216,15 +187,32 @@ public class ImageServiceImpl implements ImageService {
 
     @Override
     @Transactional(readOnly = true)
-    public byte[] getImageFile(Long id) {
-        log.info("Fetching image file for ID: {}", id);
-        Image image = imageRepository.findById(id)
+    public ImageFile getImageFile(Long id, ImageType imageType, Integer width) {
+        log.info("Fetching {} file for ID: {} at width {}", imageType, id, width);
+        if (width != null && width <= 0) {
+            throw new IllegalArgumentException("Image width must be positive");
+        }
+        Image image = imageRepository.findWithVariantsById(id)
                 .filter(Image::getIsActive)
                 .orElseThrow(() -> new NoSuchElementException("Image not found with ID: " + id));
 
+        // Refuse before the status or the stored file can tell the caller anything about the image
+        if (image.getImageType() != imageType) {
+            throw new SecurityException("Access denied. Image " + id + " is not a " + imageType);
+        }
+
+        if (image.getStatus() != ImageStatus.READY) {
+            throw new IllegalStateException("Image " + id + " is " + image.getStatus() + ", its file cannot be served");
+        }
+
+        String key = filePathFor(image, width);
         try {
-            Path path = Paths.get(image.getFilePath());
-            return Files.readAllBytes(path);
+            StoredFile stored = imageStorage.retrieve(key);
+            return new ImageFile(stored.resource(), image.getFileName(), image.getContentType(), image.getImageType(),
+                    stored.contentLength(), stored.lastModified());
+        } catch (NoSuchFileException e) {
+            log.error("Image file missing for ID {}: {}", id, key);
+            throw new NoSuchElementException("Image file not found for ID: " + id);
         } catch (IOException e) {
             log.error("Error reading image file: {}", e.getMessage());
             throw new RuntimeException("Failed to read image file", e);
@@ -264,7 +252,7 @@ public class ImageServiceImpl implements ImageService {
     @Transactional(readOnly = true)
     public long countImagesByUploaderId(Long uploaderId) {
         log.info("Counting images for uploader: {}", uploaderId);
-        return imageRepository.countByUploaderIdAndIsActiveTrue(uploaderId);
+        return usageOf(uploaderId).getImageCount();
     }
 
     @Override
@@ -278,8 +266,69 @@ public class ImageServiceImpl implements ImageService {
     @Transactional(readOnly = true)
     public long getTotalStorageUsedByUploaderId(Long uploaderId) {
         log.info("Calculating total storage used by uploader: {}", uploaderId);
-        Long totalStorage = imageRepository.getTotalStorageUsedByUploaderId(uploaderId);
-        return totalStorage != null ? totalStorage : 0L;
+        return usageOf(uploaderId).getTotalBytes();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ImageStatsResponse getImageStats(Long uploaderId) {
+        log.info("Fetching image statistics for uploader: {}", uploaderId);
+        UploaderImageUsage usage = usageOf(uploaderId);
+        Map<ImageType, Long> imagesByType = new EnumMap<>(ImageType.class);
+        for (ImageType imageType : ImageType.values()) {
+            imagesByType.put(imageType, usage.countOf(imageType));
+        }
+        return ImageStatsResponse.builder()
+                .uploaderId(uploaderId)
+                .totalImages(usage.getImageCount())
+                .totalStorageBytes(usage.getTotalBytes())
+                .imagesByType(imagesByType)
+                .build();
+    }
+
+    /**
+     * The uploader's usage counters; uploaders who never uploaded have no row
+     */
+    private UploaderImageUsage usageOf(Long uploaderId) {
+        return uploaderImageUsageRepository.findById(uploaderId)
+                .orElseGet(() -> UploaderImageUsage.builder().uploaderId(uploaderId).build());
+    }
+
+    /**
+     * Reject an upload the uploader's quota has no room for before it is spooled. The upload transaction
+     * checks again atomically, as concurrent uploads may pass this check together.
+     */
+    private void checkQuota(Long uploaderId, long bytes) {
+        UploaderImageUsage usage = usageOf(uploaderId);
+        if (usage.getImageCount() + 1 > limit(quotaMaxImages) || usage.getTotalBytes() + bytes > limit(quotaMaxBytes)) {
+            throw quotaExceeded(uploaderId);
+        }
+    }
+
+    /**
+     * Count the saved image in its uploader's usage, in the upload transaction
+     */
+    private void recordUpload(Image image) {
+        ImageType imageType = image.getImageType();
+        int added = uploaderImageUsageRepository.addWithinQuota(image.getUploader().getId(),
+                imageType == ImageType.PROFILE_PICTURE ? 1 : 0,
+                imageType == ImageType.FEATURED_IMAGE ? 1 : 0,
+                image.getFileSize(), limit(quotaMaxImages), limit(quotaMaxBytes));
+        if (added == 0) {
+            throw quotaExceeded(image.getUploader().getId());
+        }
+    }
+
+    /**
+     * Quotas of 0 or less are unlimited
+     */
+    private static long limit(long quota) {
+        return quota > 0 ? quota : Long.MAX_VALUE;
+    }
+
+    private IllegalStateException quotaExceeded(Long uploaderId) {
+        log.warn("Upload rejected, uploader {} is at their image quota", uploaderId);
+        return new IllegalStateException("Image quota exceeded for user " + uploaderId);
     }
 
     @Override
@@ -308,12 +357,19 @@ public class ImageServiceImpl implements ImageService {
         return Optional.of(profilePicture);
     }
 
-    private void createUploadDirectory() throws IOException {
-        Path uploadDir = Paths.get(uploadPath);
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
-            log.info("Created upload directory: {}", uploadPath);
+    /**
+     * The smallest variant at least {@code width} pixels wide, or the image itself when no width is
+     * asked for or no variant is wide enough.
+     */
+    private static String filePathFor(Image image, Integer width) {
+        if (width == null || image.getBlob() == null) {
+            return image.getFilePath();
         }
+        return image.getBlob().getVariants().stream()
+                .filter(variant -> variant.getWidth() >= width)
+                .min(Comparator.comparing(ImageVariant::getWidth))
+                .map(ImageVariant::getFilePath)
+                .orElse(image.getFilePath());
     }
 
     private String generateUniqueFileName(String extension) {
@@ -322,40 +378,56 @@ public class ImageServiceImpl implements ImageService {
         return String.format("%s_%s.%s", timestamp, uuid, extension);
     }
 
-    private BufferedImage processImage(MultipartFile file) throws IOException {
-        BufferedImage originalImage = ImageIO.read(file.getInputStream());
-        
-        if (originalImage == null) {
-            throw new IllegalArgumentException("Unable to read image file");
-        }
+    /**
+     * Spool and hash the upload, take a reference to the blob for its content and save the image row
+     * through {@code save}, in one short transaction. Content seen before is reused as stored: the image
+     * is READY at once (or PENDING behind the upload already processing it) and nothing is decoded.
+     * New content is queued for the image workers, with the header dimensions and upload size recorded
+     * until it is processed. Only the header is read on the request thread.
+     */
+    private Image acceptUpload(MultipartFile file, Function<Image.ImageBuilder, Image> save) throws IOException {
+        SpooledUpload upload = imageProcessingService.spool(file);
+        boolean queued = false;
+        try {
+            ImageDimensions dimensions = imageProcessingService.readDimensions(upload.path());
 
-        // Resize image if it exceeds maximum dimensions
-        int originalWidth = originalImage.getWidth();
-        int originalHeight = originalImage.getHeight();
-
-        if (originalWidth > maxWidth || originalHeight > maxHeight) {
-            log.info("Resizing image from {}x{} to fit within {}x{}", originalWidth, originalHeight, maxWidth, maxHeight);
-            
-            return Thumbnails.of(originalImage)
-                    .size(maxWidth, maxHeight)
-                    .keepAspectRatio(true)
-                    .asBufferedImage();
+            String originalFileName = file.getOriginalFilename();
+            String format = FilenameUtils.getExtension(originalFileName).toLowerCase();
+            String key = ImageStorage.shardedKey(upload.sha256(), generateUniqueFileName(format));
+
+            Image savedImage = transactionTemplate.execute(status -> {
+                imageBlobRepository.acquire(upload.sha256(), format, key, file.getSize(),
+                        dimensions.width(), dimensions.height());
+                ImageBlob blob = imageBlobRepository.findByContentHashAndFormat(upload.sha256(), format)
+                        .orElseThrow(() -> new IllegalStateException("Image blob missing after acquire"));
+                Image image = save.apply(Image.builder()
+                        .fileName(originalFileName)
+                        .storedFileName(FilenameUtils.getName(blob.getFilePath()))
+                        .filePath(blob.getFilePath())
+                        .contentType(file.getContentType())
+                        .fileSize(blob.getFileSize())
+                        .width(blob.getWidth())
+                        .height(blob.getHeight())
+                        .isActive(true)
+                        .status(blob.getStatus())
+                        .blob(blob));
+                recordUpload(image);
+                return image;
+            });
+
+            if (key.equals(savedImage.getFilePath())) {
+                imageProcessingQueue.submit(savedImage.getBlob().getId(), upload.path(), key, format,
+                        maxWidth, maxHeight);
+                queued = true;
+            } else {
+                log.info("Upload for image {} matches stored content {}, not processing it again",
+                        savedImage.getId(), savedImage.getFilePath());
+            }
+            return savedImage;
+        } finally {
+            if (!queued) {
+                Files.deleteIfExists(upload.path());
+            }
         }
-
-        return originalImage;
-    }
-
-    private String saveImageToDisk(BufferedImage image, String fileName, String extension) throws IOException {
-        String filePath = Paths.get(uploadPath, fileName).toString();
-        File outputFile = new File(filePath);
-        
-        // Ensure parent directory exists
-        outputFile.getParentFile().mkdirs();
-        
-        // Save image
-        ImageIO.write(image, extension, outputFile);
-        log.info("Image saved to disk: {}", filePath);
-        
-        return filePath;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,211 @@
+package com.codehacks.image.storage;
+
+import com.codehacks.image.dto.StoredFile;
+import com.codehacks.image.dto.StoredKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the bytes of the most requested image files in direct (off-heap) buffers in front of another
+ * image storage, so hot images are served without touching the disk or the bucket and without heap
+ * allocations beyond a small entry per file. The cache is bounded by total bytes; Caffeine's
+ * W-TinyLFU policy decides which files stay, so a burst of one-off requests does not flush the
+ * popular ones. Files larger than max-entry-bytes are always served from the underlying storage.
+ *
+ * Entries are keyed by storage key, i.e. per stored file and variant, shared by every image with the
+ * same content. Stored files are never rewritten, so entries only go when evicted or when the key is
+ * stored or deleted through this node. Direct memory of evicted entries is returned when their buffer
+ * is garbage collected, so -XX:MaxDirectMemorySize must leave headroom above max-bytes.
+ */
+public class CachingImageStorage implements ImageStorage, AutoCloseable {
+
+    private final ImageStorage delegate;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Cache<String, CachedFile> files;
+
+    public CachingImageStorage(ImageStorage delegate, long maxBytes, long maxEntryBytes) {
+        this.delegate = delegate;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, Integer.MAX_VALUE);
+        this.files = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedFile file) -> file.content().capacity())
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        delegate.store(key, source);
+        files.invalidate(key);
+    }
+
+    @Override
+    public StoredFile retrieve(String key) throws IOException {
+        CachedFile cached = files.getIfPresent(key);
+        if (cached != null) {
+            return cached.toStoredFile(key);
+        }
+        StoredFile stored = delegate.retrieve(key);
+        if (stored.contentLength() > maxEntryBytes) {
+            return stored;
+        }
+        CachedFile loaded = new CachedFile(read(stored), stored.lastModified());
+        files.put(key, loaded);
+        return loaded.toStoredFile(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        files.invalidate(key);
+        delegate.delete(key);
+    }
+
+    @Override
+    public Stream<StoredKey> list() throws IOException {
+        return delegate.list();
+    }
+
+    @Override
+    public void close() throws Exception {
+        files.invalidateAll();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Publish hits, misses and evictions (cache.* with cache=image-files), the hit ratio and the
+     * bytes held against the bound.
+     */
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, files, "image-files");
+        Gauge.builder("image.cache.hit.ratio", files, cache -> cache.stats().hitRate())
+                .description("Share of image file reads served from the off-heap cache")
+                .register(registry);
+        Gauge.builder("image.cache.bytes", this, CachingImageStorage::cachedBytes)
+                .description("Bytes of image files held in the off-heap cache")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("image.cache.max.bytes", this, storage -> storage.maxBytes)
+                .description("Bound on the bytes held in the off-heap image cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private long cachedBytes() {
+        return files.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * Read the whole file into a new direct buffer; channels of local files read straight into it.
+     */
+    private static ByteBuffer read(StoredFile stored) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) stored.contentLength());
+        try (ReadableByteChannel channel = stored.resource().readableChannel()) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private record CachedFile(ByteBuffer content, Instant lastModified) {
+
+        StoredFile toStoredFile(String key) {
+            return new StoredFile(new ByteBufferResource(key, content.duplicate()), content.remaining(), lastModified);
+        }
+    }
+
+    /**
+     * A cached file, read through its own view of the shared buffer.
+     */
+    private static class ByteBufferResource extends AbstractResource {
+
+        private final String key;
+        private final ByteBuffer content;
+
+        ByteBufferResource(String key, ByteBuffer content) {
+            this.key = key;
+            this.content = content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(content.duplicate());
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return content.remaining();
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "Cached image file [" + key + "]";
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.codehacks.image.storage;
+
+import com.codehacks.image.dto.StoredFile;
+import com.codehacks.image.dto.StoredKey;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Where stored image files live, addressed by key ('/'-separated, relative). Keys of new files start
+ * with two directory levels taken from the content hash (see {@link #shardedKey}), so no directory
+ * or key prefix grows past a few thousand entries however many images are stored.
+ */
+public interface ImageStorage {
+
+    /**
+     * Store the content of {@code source} under {@code key}. Readers see either no file or the
+     * complete one, never a partial write.
+     */
+    void store(String key, Path source) throws IOException;
+
+    /**
+     * Look up the file stored under {@code key}; throws NoSuchFileException when there is none.
+     */
+    StoredFile retrieve(String key) throws IOException;
+
+    /**
+     * Remove the file stored under {@code key}, if any.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Every key in the storage, listed lazily and in no particular order; close the stream when done.
+     */
+    Stream<StoredKey> list() throws IOException;
+
+    /**
+     * Key for {@code fileName} under the shard directories of {@code contentHash}, e.g.
+     * {@code 9f/86/20241201_120000_abc123.jpg}.
+     */
+    static String shardedKey(String contentHash, String fileName) {
+        return contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + fileName;
+    }
+}
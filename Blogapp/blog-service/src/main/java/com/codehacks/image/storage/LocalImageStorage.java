@@ -0,0 +1,129 @@
+package com.codehacks.image.storage;
+
+import com.codehacks.image.dto.StoredFile;
+import com.codehacks.image.dto.StoredKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Image storage in a local directory, each key a file under the root (its shard prefixes nested
+ * directories). A file is written to a temp file in its target directory and renamed into place,
+ * so readers never see it half written. With fsync on, the file and then its directory entry are
+ * forced to disk before the store returns, so a stored image survives a crash; without it, images
+ * stored just before a crash may be lost or, on some file systems, left empty.
+ */
+@Slf4j
+public class LocalImageStorage implements ImageStorage {
+
+    private static final String TEMP_PREFIX = ".store-";
+
+    private final Path root;
+    private final boolean fsync;
+
+    public LocalImageStorage(Path root, boolean fsync) {
+        this.root = root.toAbsolutePath().normalize();
+        this.fsync = fsync;
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Path directory = target.getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, TEMP_PREFIX, ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            if (fsync) {
+                force(temp, StandardOpenOption.WRITE);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            if (fsync) {
+                forceDirectory(directory);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public StoredFile retrieve(String key) throws IOException {
+        Path path = resolve(key);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new StoredFile(new FileSystemResource(path), attributes.size(), attributes.lastModifiedTime().toInstant());
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Stream<StoredKey> list() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return Stream.empty();
+        }
+        return Files.walk(root)
+                .map(this::toStoredKey)
+                .flatMap(Optional::stream);
+    }
+
+    /**
+     * The key of a regular file under the root, '/'-separated whatever the platform; empty for
+     * directories and for files removed while the tree is walked.
+     */
+    private Optional<StoredKey> toStoredKey(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            String key = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+            return Optional.of(new StoredKey(key, attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The file for {@code key}; keys that would resolve outside the root are rejected.
+     */
+    Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid image storage key: " + key);
+        }
+        return path;
+    }
+
+    private static void force(Path path, StandardOpenOption mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, mode)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Directories can only be opened for fsync on some platforms (not Windows); where they cannot,
+     * the rename is as durable as the file system makes it.
+     */
+    private static void forceDirectory(Path directory) {
+        try {
+            force(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            log.debug("Could not fsync directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
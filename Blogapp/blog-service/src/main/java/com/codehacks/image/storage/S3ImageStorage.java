@@ -0,0 +1,126 @@
+package com.codehacks.image.storage;
+
+import com.codehacks.image.dto.StoredFile;
+import com.codehacks.image.dto.StoredKey;
+import org.springframework.core.io.AbstractResource;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Image storage in an S3-compatible bucket (AWS S3, MinIO, ...), so every replica serves the same
+ * files. A PUT only becomes visible once complete, which gives the same all-or-nothing store as the
+ * local rename. Files are streamed from the bucket when served, not buffered.
+ */
+public class S3ImageStorage implements ImageStorage, AutoCloseable {
+
+    private final S3Client s3Client;
+    private final String bucket;
+
+    public S3ImageStorage(S3Client s3Client, String bucket) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        try {
+            s3Client.putObject(request -> request.bucket(bucket).key(key), RequestBody.fromFile(source));
+        } catch (S3Exception e) {
+            throw new IOException("Failed to store " + key + " in bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public StoredFile retrieve(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3Client.headObject(request -> request.bucket(bucket).key(key));
+            return new StoredFile(new S3ObjectResource(key, head.contentLength()), head.contentLength(), head.lastModified());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (S3Exception e) {
+            // HEAD responses have no body, so a missing key arrives as a bare 404
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw new IOException("Failed to read " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (S3Exception e) {
+            throw new IOException("Failed to delete " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    /**
+     * Pages of up to 1000 keys are fetched as the stream is consumed, so listing failures surface as
+     * S3Exception from the stream itself.
+     */
+    @Override
+    public Stream<StoredKey> list() {
+        return s3Client.listObjectsV2Paginator(request -> request.bucket(bucket)).contents().stream()
+                .map(object -> new StoredKey(object.key(), object.lastModified()));
+    }
+
+    @Override
+    public void close() {
+        s3Client.close();
+    }
+
+    /**
+     * An object of the bucket, fetched each time its content is read.
+     */
+    private class S3ObjectResource extends AbstractResource {
+
+        private final String key;
+        private final long contentLength;
+
+        S3ObjectResource(String key, long contentLength) {
+            this.key = key;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return s3Client.getObject(request -> request.bucket(bucket).key(key));
+            } catch (NoSuchKeyException e) {
+                throw new NoSuchFileException(key);
+            } catch (S3Exception e) {
+                throw new IOException("Failed to read " + key + " from bucket " + bucket, e);
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + key + "]";
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.codehacks.post.controller;
 
+import com.codehacks.post.dto.PostFeedPage;
 import com.codehacks.post.dto.PostRequest;
 import com.codehacks.post.dto.PostResponse;
 import com.codehacks.post.dto.PostMapper;
+import com.codehacks.post.dto.PostSummaryResponse;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.model.PostStatus;
 import com.codehacks.post.service.PostService;
-import com.codehacks.user.model.User;
+import com.codehacks.user.model.AuthenticatedUser;
 import com.codehacks.user.model.UserRole;
+import com.codehacks.util.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -37,18 +40,35 @@ public class PostController {
     private final PostService postService;
 
     @GetMapping
-    public ResponseEntity<List<PostResponse>> getAllPublishedPosts(@RequestParam(required = false) String query) {
-        List<PostResponse> posts;
+    public ResponseEntity<List<PostSummaryResponse>> getAllPublishedPosts(@RequestParam(required = false) String query,
+                                                                          @RequestParam(required = false) Integer page,
+                                                                          @RequestParam(required = false) Integer size) {
+        List<PostSummaryResponse> posts;
         if (query != null && !query.trim().isEmpty()) {
-            posts = postService.searchPosts(query).stream().map(PostMapper.toResponse).toList();
+            int pageNumber = page == null ? 0 : Math.max(page, 0);
+            int pageSize = size == null ? Constants.DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), Constants.MAX_PAGE_SIZE);
+            posts = postService.searchPosts(query.trim(), pageNumber, pageSize);
         } else {
-            posts = postService.getAllPublishedPosts().stream().map(PostMapper.toResponse).toList();
+            posts = postService.getAllPublishedPosts();
         }
         return ResponseEntity.ok(posts);
     }
 
+    @GetMapping("/author/{authorId}")
+    public ResponseEntity<List<PostSummaryResponse>> getPublishedPostsByAuthor(@PathVariable Long authorId) {
+        return ResponseEntity.ok(postService.getPublishedPostsByAuthor(authorId));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<PostFeedPage> getPublishedFeed(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer size) {
+        int pageSize = size == null ? Constants.DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), Constants.MAX_PAGE_SIZE);
+        String after = cursor == null || cursor.isBlank() ? null : cursor;
+        return ResponseEntity.ok(postService.getPublishedFeed(after, pageSize));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<PostResponse> getPostById(@PathVariable Long id, @AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<PostResponse> getPostById(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         Post post = postService.getPostById(id)
                 .orElseThrow(() -> new NoSuchElementException("Post not found with ID: " + id));
 
@@ -66,7 +86,7 @@ public class PostController {
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<PostResponse> createPost(@Valid @RequestBody PostRequest postRequest,
-                                                   @AuthenticationPrincipal User currentUser) {
+                                                   @AuthenticationPrincipal AuthenticatedUser currentUser) {
         Post createdPost = postService.createPost(PostMapper.fromRequest.apply(postRequest, currentUser.getId()));
         return ResponseEntity.status(HttpStatus.CREATED).body(PostMapper.toResponse.apply(createdPost));
     }
@@ -74,7 +94,7 @@ public class PostController {
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @postService.getPostById(#id).orElse(null)?.authorId == #currentUser.id")
     public ResponseEntity<PostResponse> updatePost(@PathVariable Long id, @Valid @RequestBody PostRequest postRequest,
-                                                   @AuthenticationPrincipal User currentUser) {
+                                                   @AuthenticationPrincipal AuthenticatedUser currentUser) {
         Post updatedPost = postService.updatePost(id, PostMapper.fromRequest.apply(postRequest, currentUser.getId()));
         return ResponseEntity.ok(PostMapper.toResponse.apply(updatedPost));
     }
@@ -90,16 +110,14 @@ public class PostController {
 
     @PostMapping("/{id}/clap")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Void> clapForPost(@PathVariable Long id, @AuthenticationPrincipal User currentUser) {
-        postService.clapForPost(id, currentUser.getId());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Long> clapForPost(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(postService.clapForPost(id, currentUser.getId()));
     }
 
     @DeleteMapping("/{id}/clap")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Void> unclapForPost(@PathVariable Long id, @AuthenticationPrincipal User currentUser) {
-        postService.unclapForPost(id, currentUser.getId());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Long> unclapForPost(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(postService.unclapForPost(id, currentUser.getId()));
     }
 
     @GetMapping("/{id}/claps/count")
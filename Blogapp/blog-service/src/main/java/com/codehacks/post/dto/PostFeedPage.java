@@ -0,0 +1,23 @@
+package com.codehacks.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the published-post feed.
+ * nextCursor is null when there are no further pages.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostFeedPage {
+
+    private List<PostSummaryResponse> posts;
+    private String nextCursor;
+    private boolean hasMore;
+}
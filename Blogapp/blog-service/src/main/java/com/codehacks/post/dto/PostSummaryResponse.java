@@ -0,0 +1,35 @@
+package com.codehacks.post.dto;
+
+import com.codehacks.post.model.PostStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight view of a post for list endpoints.
+ * Built directly by repository projections, so the full content column is never loaded;
+ * only the first {@link #EXCERPT_LENGTH} characters are read for the excerpt.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostSummaryResponse {
+
+    public static final int EXCERPT_LENGTH = 280;
+
+    private Long id;
+    private String title;
+    private String excerpt;
+    private Long authorId;
+    private String authorName;
+    private PostStatus status;
+    private String imageUrl;
+    private Long featuredImageId;
+    private int clapsCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,87 @@
+package com.codehacks.post.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running clap total of one post that has not been fully flushed to posts.claps_count yet,
+ * together with the persisted count it was last synced with.
+ * Claps add to it without locking. A total that is being dropped is retired first; a clap that
+ * finds it retired adds nothing, so the caller can retry on the post's next total.
+ */
+public final class ClapTotal {
+
+    private final LongAdder total = new LongAdder();
+    // Claps that checked the retired flag, and those done with it: equal once none is mid-add
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    // Replaced as a whole, so readers always get a count and the flushed amount it includes together
+    private volatile Persisted persisted;
+    private volatile boolean retired;
+
+    /**
+     * Adds a delta unless the total is retired.
+     *
+     * @return false if the total is being dropped and the delta was not added
+     */
+    public boolean add(int delta) {
+        started.increment();
+        try {
+            if (retired) {
+                return false;
+            }
+            total.add(delta);
+            return true;
+        } finally {
+            finished.increment();
+        }
+    }
+
+    public long sum() {
+        return total.sum();
+    }
+
+    public Persisted getPersisted() {
+        return persisted;
+    }
+
+    public void setPersisted(Persisted persisted) {
+        this.persisted = persisted;
+    }
+
+    /**
+     * Part of the running total already included in the persisted count.
+     */
+    public long flushed() {
+        Persisted current = persisted;
+        return current == null ? 0 : current.flushed();
+    }
+
+    /**
+     * Retires the total if it is fully flushed and no clap is mid-add, so that nothing can be added
+     * to it any more. The caller drops it, or calls {@link #reinstate()} if it cannot.
+     */
+    public boolean retire() {
+        long flushedSum = flushed();
+        if (total.sum() != flushedSum) {
+            return false;
+        }
+        retired = true;
+        // finished is read first: each clap it counts is then visible in started and in total
+        boolean settled = finished.sum() == started.sum();
+        if (settled && total.sum() == flushedSum) {
+            return true;
+        }
+        retired = false;
+        return false;
+    }
+
+    public void reinstate() {
+        retired = false;
+    }
+
+    /**
+     * Clap count of a post's row and how much of the post's running total it includes.
+     */
+    public record Persisted(long count, long flushed) {
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -13,6 +14,20 @@ public interface ClapRepository extends JpaRepository<Clap, Long> {
     // Check if a user has already clapped for a specific post
     Optional<Clap> findByUserIdAndPostId(Long userId, Long postId);
 
+    // Insert a clap for an existing post in one statement; returns 0 if the post is missing or the user already clapped
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO claps (user_id, post_id, created_at) " +
+            "SELECT :userId, p.id, CURRENT_TIMESTAMP FROM posts p WHERE p.id = :postId " +
+            "ON CONFLICT (user_id, post_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    // Remove a single user's clap; returns the number of rows deleted (0 or 1)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Clap c WHERE c.userId = :userId AND c.postId = :postId")
+    int deleteByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
+
     // Count claps for a specific post
     long countByPostId(Long postId);
 
@@ -1,23 +1,89 @@
 package com.codehacks.post.repository;
 
+import com.codehacks.post.dto.PostSummaryResponse;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.model.PostStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
 
-    // Find all posts by status (e.g., PUBLISHED)
-    List<Post> findByStatus(PostStatus status);
+    // Projection shared by the summary queries below; reads an excerpt instead of the whole content column
+    String SUMMARY_SELECT = "SELECT new com.codehacks.post.dto.PostSummaryResponse(" +
+            "p.id, p.title, SUBSTRING(p.content, 1, " + PostSummaryResponse.EXCERPT_LENGTH + "), " +
+            "p.authorId, CONCAT(u.firstName, ' ', u.lastName), p.status, p.imageUrl, p.featuredImageId, " +
+            "p.clapsCount, p.createdAt, p.updatedAt) " +
+            "FROM Post p LEFT JOIN User u ON u.id = p.authorId ";
 
-    // Find posts by title, content, or author (case-insensitive)
-    // In a real app, you might join with User table for author name search
-    List<Post> findByTitleContainingIgnoreCaseOrContentContainingIgnoreCase(String title, String content);
+    // Full-text document for a post: title matches rank above body matches
+    String SEARCH_VECTOR_EXPRESSION = "setweight(to_tsvector('english', coalesce(title, '')), 'A') || " +
+            "setweight(to_tsvector('english', coalesce(content, '')), 'B')";
 
     // Find posts by author ID and status
     List<Post> findByAuthorIdAndStatus(Long authorId, PostStatus status);
 
     // Find posts by author ID
     List<Post> findByAuthorId(Long authorId);
+
+    // Summaries of all posts with the given status, newest first
+    @Query(SUMMARY_SELECT + "WHERE p.status = :status ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findSummariesByStatus(@Param("status") PostStatus status);
+
+    // Summaries of an author's posts with the given status, newest first
+    @Query(SUMMARY_SELECT + "WHERE p.authorId = :authorId AND p.status = :status ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findSummariesByAuthorIdAndStatus(@Param("authorId") Long authorId,
+                                                               @Param("status") PostStatus status);
+
+    // Summaries for the given ids, in no particular order
+    @Query(SUMMARY_SELECT + "WHERE p.id IN :ids")
+    List<PostSummaryResponse> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Ids of published posts matching the web-style query, best match first (served by idx_post_search_vector)
+    @Query(value = "SELECT p.id FROM posts p, websearch_to_tsquery('english', :query) q " +
+            "WHERE p.status = 'PUBLISHED' AND p.search_vector @@ q " +
+            "ORDER BY ts_rank_cd(p.search_vector, q) DESC, p.created_at DESC, p.id DESC",
+            nativeQuery = true)
+    List<Long> searchPublishedIds(@Param("query") String query, Pageable pageable);
+
+    // Persisted clap counter of a post, without loading the entity
+    @Query("SELECT p.clapsCount FROM Post p WHERE p.id = :id")
+    Optional<Integer> findClapsCountById(@Param("id") Long id);
+
+    // Title of a post, without loading its content
+    @Query("SELECT p.title FROM Post p WHERE p.id = :id")
+    Optional<String> findTitleById(@Param("id") Long id);
+
+    // Adjust the clap counter in place and return the new value; empty if the post does not exist
+    @Transactional
+    @Query(value = "UPDATE posts SET claps_count = GREATEST(claps_count + :delta, 0) WHERE id = :id " +
+            "RETURNING claps_count", nativeQuery = true)
+    Optional<Integer> adjustClapsCount(@Param("id") Long id, @Param("delta") int delta);
+
+    // Recompute the search document of a single post after its title or content changed
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE posts SET search_vector = " + SEARCH_VECTOR_EXPRESSION + " WHERE id = :id",
+            nativeQuery = true)
+    void refreshSearchVector(@Param("id") Long id);
+
+    // First page of the feed, newest first (served by idx_post_status_created)
+    @Query(SUMMARY_SELECT + "WHERE p.status = :status ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findFeedFirstPage(@Param("status") PostStatus status, Pageable pageable);
+
+    // Next page of the feed: seeks strictly past the (createdAt, id) of the previous page's last row
+    @Query(SUMMARY_SELECT + "WHERE p.status = :status " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostSummaryResponse> findFeedPageAfter(@Param("status") PostStatus status,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
 }
@@ -0,0 +1,210 @@
+package com.codehacks.post.service;
+
+import com.codehacks.post.model.ClapTotal;
+import com.codehacks.post.model.ClapTotal.Persisted;
+import com.codehacks.post.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maintains posts.claps_count. By default it is a write-behind buffer: clap and unclap only add
+ * a delta to a per-post LongAdder, so concurrent claps on the same post never contend on its row
+ * lock, and a scheduled flush applies all pending deltas in one batched UPDATE. With
+ * app.clap.write-behind.enabled=false the counter is instead updated in place with a single
+ * UPDATE ... RETURNING per clap.
+ *
+ * The adders are never reset: each flush writes the difference between the running total and
+ * what has already been flushed, so a clap recorded while a flush is in progress is never lost.
+ * Once a post's total has been fully flushed its entries are dropped, so only posts clapped since
+ * the last flush are kept in memory. Dropping never locks out claps: a clap that finds a total
+ * being dropped adds nothing to it and retries on the post's new total.
+ *
+ * Each post's total also keeps the persisted count and how much of the total it already includes.
+ * The count is read once, on the post's first clap, and every flush replaces it with the value its
+ * UPDATE left in the row, so a clap reports its new count without a query or a lock.
+ * The claps table (and its unique constraint) stays the source of truth for who clapped.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClapCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClapCounterService.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE posts SET claps_count = GREATEST(claps_count + ?, 0) WHERE id = ?";
+
+    private static final String COUNTS_SQL = "SELECT id, claps_count FROM posts WHERE id = ANY(?)";
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.clap.write-behind.enabled:true}")
+    private boolean writeBehind = true;
+
+    private final Map<Long, ClapTotal> totals = new ConcurrentHashMap<>();
+    // Write-held by a flush from before its commit until it has replaced the persisted counts, so a
+    // first read of a post's count never sees the row and the flushed amount from different sides
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    /**
+     * Applies a clap (+1) or unclap (-1) to the post's counter and returns its new value.
+     * In write-behind mode the value is the persisted count plus the not yet flushed delta, both
+     * kept in memory; only a post's first clap reads its count from the database.
+     */
+    public long adjust(Long postId, int delta) {
+        if (!writeBehind) {
+            return postRepository.adjustClapsCount(postId, delta).orElse(0);
+        }
+        ClapTotal claps = record(postId, delta);
+        Persisted persisted = claps.getPersisted();
+        if (persisted == null) {
+            persisted = load(postId, claps);
+        }
+        return Math.max(persisted.count() + claps.sum() - persisted.flushed(), 0);
+    }
+
+    /**
+     * Delta recorded for a post that has not reached the database yet.
+     */
+    public long pendingDelta(Long postId) {
+        ClapTotal claps = totals.get(postId);
+        return claps == null ? 0 : claps.sum() - claps.flushed();
+    }
+
+    /**
+     * Adds a delta to the post's running total without taking any lock once the post has one.
+     */
+    private ClapTotal record(Long postId, int delta) {
+        while (true) {
+            ClapTotal claps = totals.computeIfAbsent(postId, id -> new ClapTotal());
+            if (claps.add(delta)) {
+                return claps;
+            }
+            // prune() is dropping this total: retry on the post's next one
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Reads the persisted count of a post whose total has none yet, while no flush is committing.
+     */
+    private Persisted load(Long postId, ClapTotal claps) {
+        Lock readLock = flushLock.readLock();
+        readLock.lock();
+        try {
+            // A flush may have set it while this clap waited for the lock
+            if (claps.getPersisted() == null) {
+                claps.setPersisted(new Persisted(postRepository.findClapsCountById(postId).orElse(0), 0));
+            }
+            return claps.getPersisted();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Drops any buffered delta for a post that is being deleted.
+     */
+    public synchronized void discard(Long postId) {
+        totals.remove(postId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.clap.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Long> postIds = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        Map<ClapTotal, Long> snapshot = new HashMap<>();
+        totals.forEach((postId, claps) -> {
+            long sum = claps.sum();
+            long delta = sum - claps.flushed();
+            if (delta != 0) {
+                postIds.add(postId);
+                batch.add(new Object[]{delta, postId});
+                snapshot.put(claps, sum);
+            }
+        });
+        if (batch.isEmpty()) {
+            prune();
+            return;
+        }
+
+        Lock writeLock = flushLock.writeLock();
+        try {
+            // Connections are not auto-commit, so the batch needs an explicit transaction
+            Map<Long, Long> counts = transactionTemplate.execute(status -> {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                // Read inside the transaction, so the counts are exactly what this flush commits
+                Map<Long, Long> written = readCounts(postIds);
+                // Locked only once this flush holds its connection, so readers waiting on the lock
+                // cannot starve it of one
+                writeLock.lock();
+                return written;
+            });
+            // A post deleted meanwhile has no row left and counts as 0
+            totals.forEach((postId, claps) -> {
+                Long sum = snapshot.get(claps);
+                if (sum != null) {
+                    claps.setPersisted(new Persisted(counts.getOrDefault(postId, 0L), sum));
+                }
+            });
+            prune();
+        } catch (DataAccessException e) {
+            // Nothing is marked as flushed, so the same deltas are retried on the next run
+            log.warn("Failed to flush clap counts for {} posts: {}", batch.size(), e.getMessage());
+            return;
+        } finally {
+            if (flushLock.isWriteLockedByCurrentThread()) {
+                writeLock.unlock();
+            }
+        }
+
+        Cache posts = cacheManager.getCache("posts");
+        if (posts != null) {
+            postIds.forEach(posts::evict);
+        }
+        log.debug("Flushed clap counts for {} posts", batch.size());
+    }
+
+    private Map<Long, Long> readCounts(List<Long> postIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(COUNTS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", postIds.toArray())),
+                (RowCallbackHandler) row -> counts.put(row.getLong("id"), row.getLong("claps_count")));
+        return counts;
+    }
+
+    /**
+     * Drops posts with nothing left to flush. A total is retired before it is removed, so a clap
+     * racing the removal is either in the total that was checked (and it is kept) or retries on a
+     * new one.
+     */
+    private void prune() {
+        totals.forEach((postId, claps) -> {
+            if (claps.retire() && !totals.remove(postId, claps)) {
+                claps.reinstate();
+            }
+        });
+    }
+}
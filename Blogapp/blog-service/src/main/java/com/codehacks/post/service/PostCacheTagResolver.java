@@ -0,0 +1,78 @@
+package com.codehacks.post.service;
+
+import com.codehacks.config.CacheTagResolver;
+import com.codehacks.post.dto.PostFeedPage;
+import com.codehacks.post.dto.PostSummaryResponse;
+import com.codehacks.post.model.Post;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tags entries of the posts cache so PostService can evict precisely what a write affects:
+ * every entry is tagged with the ids of the posts it contains, and list entries additionally
+ * carry the tag of the list they belong to (which a newly visible post would join).
+ */
+@Service
+public class PostCacheTagResolver implements CacheTagResolver {
+
+    public static final String CACHE_NAME = "posts";
+
+    public static final String PUBLISHED = "published";
+    public static final String FEED = "feed";
+    public static final String FEED_HEAD = "feed:head";
+    public static final String SEARCH = "search";
+
+    public static String post(Long postId) {
+        return "post:" + postId;
+    }
+
+    public static String author(Long authorId) {
+        return "author:" + authorId;
+    }
+
+    @Override
+    public String cacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public Set<String> tagsFor(Object key, Object value) {
+        Set<String> tags = new HashSet<>();
+        String cacheKey = String.valueOf(key);
+        if (cacheKey.equals("summaries:published")) {
+            tags.add(PUBLISHED);
+        } else if (cacheKey.startsWith("summaries:author:")) {
+            tags.add("author:" + cacheKey.substring("summaries:author:".length()));
+        } else if (cacheKey.startsWith("summaries:search:")) {
+            tags.add(SEARCH);
+        } else if (cacheKey.startsWith("feed:")) {
+            tags.add(FEED);
+            if (cacheKey.startsWith("feed:first:")) {
+                tags.add(FEED_HEAD);
+            }
+        }
+
+        if (value instanceof Post post) {
+            tags.add(post(post.getId()));
+        } else if (value instanceof PostFeedPage page) {
+            addSummaryTags(page.getPosts(), tags);
+        } else if (value instanceof Collection<?> items) {
+            addSummaryTags(items, tags);
+        }
+        return tags;
+    }
+
+    private static void addSummaryTags(Collection<?> items, Set<String> tags) {
+        if (items == null) {
+            return;
+        }
+        for (Object item : items) {
+            if (item instanceof PostSummaryResponse summary) {
+                tags.add(post(summary.getId()));
+            }
+        }
+    }
+}
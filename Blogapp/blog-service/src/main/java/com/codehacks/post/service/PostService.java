@@ -1,6 +1,9 @@
 package com.codehacks.post.service;
 
-import com.codehacks.post.model.Clap;
+import com.codehacks.config.CacheTagService;
+import com.codehacks.post.dto.PostCursor;
+import com.codehacks.post.dto.PostFeedPage;
+import com.codehacks.post.dto.PostSummaryResponse;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.model.PostStatus;
 import com.codehacks.post.repository.ClapRepository;
@@ -13,16 +16,25 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * Service for post-related business logic. All methods work with Post entities.
- * Controllers are responsible for mapping to/from DTOs using PostMapper.
+ * Service for post-related business logic. Single-post methods work with Post entities and
+ * controllers map them to/from DTOs using PostMapper. List methods return PostSummaryResponse
+ * projections so that the content column is only ever loaded for a single post.
+ * The hottest reads are cached with sync = true so concurrent misses are coalesced into one load.
  */
 @Service
 @RequiredArgsConstructor
@@ -32,52 +44,102 @@ public class PostService {
 
     private final PostRepository postRepository;
     private final ClapRepository clapRepository;
+    private final ClapCounterService clapCounterService;
+    private final CacheTagService cacheTagService;
 
-    @Cacheable(value = "posts", key = "'published'")
-    public List<Post> getAllPublishedPosts() {
-        log.debug("Loading all published posts");
-        return postRepository.findByStatus(PostStatus.PUBLISHED);
+    @Cacheable(value = "posts", key = "'summaries:published'", sync = true)
+    public List<PostSummaryResponse> getAllPublishedPosts() {
+        log.debug("Loading all published post summaries");
+        return postRepository.findSummariesByStatus(PostStatus.PUBLISHED);
     }
 
-    @Cacheable(value = "posts", key = "'search:' + #query")
-    public List<Post> searchPosts(String query) {
-        log.debug("Searching posts with query: {}", query);
-        // In a real scenario, you might want to search only PUBLISHED posts
-        // For simplicity, this searches all posts
-        return postRepository.findByTitleContainingIgnoreCaseOrContentContainingIgnoreCase(query, query);
+    @Cacheable(value = "posts", key = "'summaries:author:' + #authorId")
+    public List<PostSummaryResponse> getPublishedPostsByAuthor(Long authorId) {
+        log.debug("Loading published post summaries for authorId={}", authorId);
+        return postRepository.findSummariesByAuthorIdAndStatus(authorId, PostStatus.PUBLISHED);
     }
 
-    @Cacheable(value = "posts", key = "#id")
+    /**
+     * Keyset-paginated feed of published posts, newest first. Each page is cached on its own,
+     * so a miss only ever reads {@code size + 1} rows regardless of how many posts exist.
+     */
+    @Cacheable(value = "posts", key = "'feed:' + (#cursor ?: 'first') + ':' + #size", sync = true)
+    public PostFeedPage getPublishedFeed(String cursor, int size) {
+        log.debug("Loading published feed page after cursor={} size={}", cursor, size);
+        // Fetch one extra row to learn whether another page exists without a count query
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<PostSummaryResponse> rows;
+        if (cursor == null) {
+            rows = postRepository.findFeedFirstPage(PostStatus.PUBLISHED, limit);
+        } else {
+            PostCursor after = PostCursor.decode(cursor);
+            rows = postRepository.findFeedPageAfter(PostStatus.PUBLISHED, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<PostSummaryResponse> page = hasMore ? List.copyOf(rows.subList(0, size)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            PostSummaryResponse last = page.get(page.size() - 1);
+            nextCursor = new PostCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return PostFeedPage.builder()
+                .posts(page)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Ranked full-text search over published posts, backed by the GIN-indexed search_vector column.
+     * Matching ids are ranked and paged in the database; summaries are then loaded for that page only.
+     */
+    @Cacheable(value = "posts", key = "'summaries:search:' + #query + ':' + #page + ':' + #size")
+    public List<PostSummaryResponse> searchPosts(String query, int page, int size) {
+        log.debug("Searching published posts with query={} page={} size={}", query, page, size);
+        List<Long> rankedIds = postRepository.searchPublishedIds(query, PageRequest.of(page, size));
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, PostSummaryResponse> summariesById = postRepository.findSummariesByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(PostSummaryResponse::getId, Function.identity()));
+        // Restore rank order; a post deleted between the two queries is simply skipped
+        return rankedIds.stream()
+                .map(summariesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Cacheable(value = "posts", key = "#id", sync = true)
     public Optional<Post> getPostById(Long id) {
         log.debug("Loading post by ID: {}", id);
         return postRepository.findById(id);
     }
 
     @Transactional
-    @Caching(
-        put = @CachePut(value = "posts", key = "#result.id"),
-        evict = {
-            @CacheEvict(value = "posts", key = "'published'"),
-            @CacheEvict(value = "posts", key = "'search:*'", allEntries = true)
-        }
-    )
+    @CachePut(value = "posts", key = "#result.id")
     public Post createPost(Post post) {
         post.setCreatedAt(LocalDateTime.now());
         post.setUpdatedAt(LocalDateTime.now());
         // Claps count defaults to 0 in entity, no need to set here
         Post saved = postRepository.save(post);
+        postRepository.refreshSearchVector(saved.getId());
+        if (saved.getStatus() == PostStatus.PUBLISHED) {
+            // A new post is the newest, so of the feed pages only the first ones change
+            cacheTagService.evictTags(PostCacheTagResolver.CACHE_NAME, List.of(
+                    PostCacheTagResolver.PUBLISHED,
+                    PostCacheTagResolver.author(saved.getAuthorId()),
+                    PostCacheTagResolver.FEED_HEAD,
+                    PostCacheTagResolver.SEARCH));
+        }
         log.info("Created post with id={} by authorId={}", saved.getId(), saved.getAuthorId());
         return saved;
     }
 
     @Transactional
-    @Caching(
-        put = @CachePut(value = "posts", key = "#id"),
-        evict = {
-            @CacheEvict(value = "posts", key = "'published'"),
-            @CacheEvict(value = "posts", key = "'search:*'", allEntries = true)
-        }
-    )
+    @CachePut(value = "posts", key = "#id")
     public Post updatePost(Long id, Post updatedPost) {
         Post existingPost = postRepository.findById(id)
                 .orElseThrow(() -> {
@@ -85,6 +147,10 @@ public class PostService {
                     return new NoSuchElementException("Post not found with ID: " + id);
                 });
 
+        boolean wasPublished = existingPost.getStatus() == PostStatus.PUBLISHED;
+        boolean textChanged = !Objects.equals(existingPost.getTitle(), updatedPost.getTitle())
+                || !Objects.equals(existingPost.getContent(), updatedPost.getContent());
+
         existingPost.setTitle(updatedPost.getTitle());
         existingPost.setContent(updatedPost.getContent());
         existingPost.setImageUrl(updatedPost.getImageUrl());
@@ -92,18 +158,14 @@ public class PostService {
         existingPost.setUpdatedAt(LocalDateTime.now());
 
         Post saved = postRepository.save(existingPost);
+        postRepository.refreshSearchVector(saved.getId());
+        evictCachedListsAfterUpdate(saved, wasPublished, textChanged);
         log.info("Updated post with id={}", saved.getId());
         return saved;
     }
 
     @Transactional
-    @Caching(
-        evict = {
-            @CacheEvict(value = "posts", key = "#id"),
-            @CacheEvict(value = "posts", key = "'published'"),
-            @CacheEvict(value = "posts", key = "'search:*'", allEntries = true)
-        }
-    )
+    @CacheEvict(value = "posts", key = "#id")
     public void deletePost(Long id) {
         if (!postRepository.existsById(id)) {
             log.warn("Attempted to delete non-existent post with id={}", id);
@@ -113,65 +175,80 @@ public class PostService {
         // Delete associated claps first to maintain referential integrity
         clapRepository.deleteByPostId(id);
         postRepository.deleteById(id);
+        clapCounterService.discard(id);
+        // Only cached entries that contained the post are affected
+        cacheTagService.evictTags(PostCacheTagResolver.CACHE_NAME, List.of(PostCacheTagResolver.post(id)));
         log.info("Deleted post with id={}", id);
     }
 
+    /**
+     * Evicts the cached entries an update can change: everything that contains the post, plus the
+     * lists it may newly appear in. Its createdAt never changes, so it keeps its feed position.
+     */
+    private void evictCachedListsAfterUpdate(Post post, boolean wasPublished, boolean textChanged) {
+        List<String> tags = new ArrayList<>();
+        tags.add(PostCacheTagResolver.post(post.getId()));
+        if (post.getStatus() == PostStatus.PUBLISHED) {
+            if (!wasPublished) {
+                tags.add(PostCacheTagResolver.PUBLISHED);
+                tags.add(PostCacheTagResolver.author(post.getAuthorId()));
+                tags.add(PostCacheTagResolver.FEED);
+                tags.add(PostCacheTagResolver.SEARCH);
+            } else if (textChanged) {
+                // New wording can match searches the post was not part of before
+                tags.add(PostCacheTagResolver.SEARCH);
+            }
+        }
+        cacheTagService.evictTags(PostCacheTagResolver.CACHE_NAME, tags);
+    }
+
     // --- Clap Operations ---
 
-    @Transactional
+    /**
+     * Records a clap and returns the post's new clap count. The claps row is written by a single
+     * INSERT ... ON CONFLICT DO NOTHING that also checks the post exists, so duplicates (including
+     * concurrent ones) are rejected by the unique (user_id, post_id) constraint without a prior
+     * lookup. The counter itself is maintained by ClapCounterService.
+     */
     @Caching(
         evict = {
             @CacheEvict(value = "posts", key = "#postId"),
             @CacheEvict(value = "claps", key = "'count:' + #postId")
         }
     )
-    public void clapForPost(Long postId, Long userId) {
-        // Check if the user has already clapped for this post
-        Optional<Clap> existingClap = clapRepository.findByUserIdAndPostId(userId, postId);
-
-        if (existingClap.isPresent()) {
+    public long clapForPost(Long postId, Long userId) {
+        if (clapRepository.insertIfAbsent(userId, postId) == 0) {
+            // Only the failure path pays for working out why nothing was inserted
+            if (!postRepository.existsById(postId)) {
+                throw new NoSuchElementException("Post not found with ID: " + postId);
+            }
             log.warn("User {} already clapped for post {}", userId, postId);
             throw new IllegalStateException("User has already clapped for this post.");
         }
 
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new NoSuchElementException("Post not found with ID: " + postId));
-
-        // Create a new clap entry
-        Clap newClap = new Clap();
-        newClap.setPostId(postId);
-        newClap.setUserId(userId);
-        clapRepository.save(newClap);
-
-        // Increment claps count on the post
-        post.setClapsCount(post.getClapsCount() + 1);
-        postRepository.save(post);
+        long count = clapCounterService.adjust(postId, 1);
         log.info("User {} clapped for post {}", userId, postId);
+        return count;
     }
 
-    @Transactional
+    /**
+     * Removes a clap with a single DELETE and returns the post's new clap count.
+     */
     @Caching(
         evict = {
             @CacheEvict(value = "posts", key = "#postId"),
             @CacheEvict(value = "claps", key = "'count:' + #postId")
         }
     )
-    public void unclapForPost(Long postId, Long userId) {
-        Clap existingClap = clapRepository.findByUserIdAndPostId(userId, postId)
-                .orElseThrow(() -> {
-                    log.warn("User {} tried to unclap post {} but no clap exists", userId, postId);
-                    return new NoSuchElementException("Clap not found for user on this post.");
-                });
-
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new NoSuchElementException("Post not found with ID: " + postId));
-
-        clapRepository.delete(existingClap);
+    public long unclapForPost(Long postId, Long userId) {
+        if (clapRepository.deleteByUserIdAndPostId(userId, postId) == 0) {
+            log.warn("User {} tried to unclap post {} but no clap exists", userId, postId);
+            throw new NoSuchElementException("Clap not found for user on this post.");
+        }
 
-        // Decrement claps count on the post, ensuring it doesn't go below zero
-        post.setClapsCount(Math.max(0, post.getClapsCount() - 1));
-        postRepository.save(post);
+        long count = clapCounterService.adjust(postId, -1);
         log.info("User {} unclapped post {}", userId, postId);
+        return count;
     }
 
     @Cacheable(value = "claps", key = "'count:' + #postId")
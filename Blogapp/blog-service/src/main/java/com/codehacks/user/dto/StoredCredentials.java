@@ -0,0 +1,9 @@
+package com.codehacks.user.dto;
+
+import com.codehacks.user.model.UserRole;
+
+/**
+ * Email, role and token version of a user as last written to the database.
+ */
+public record StoredCredentials(String email, UserRole role, int tokenVersion) {
+}
@@ -0,0 +1,58 @@
+package com.codehacks.user.model;
+
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable snapshot of an authenticated user, used as the security principal instead of the
+ * full User entity: it carries only what request handling needs (id, email, role, authorities)
+ * and is cheap to keep in memory between requests. Claims-bearing tokens carry the same fields,
+ * so it can also be built from a verified token without any lookup.
+ */
+@Value
+public class AuthenticatedUser implements UserDetails {
+
+    Long id;
+    String email;
+    UserRole role;
+    int tokenVersion;
+    List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String email, UserRole role) {
+        this(id, email, role, 0);
+    }
+
+    public AuthenticatedUser(Long id, String email, UserRole role, int tokenVersion) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(), user.getTokenVersion());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        // Tokens are the only credentials, they are never kept on the principal
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        // Email is the Spring Security username, as for User
+        return email;
+    }
+}
@@ -57,6 +57,11 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private UserRole role;
 
+    // Tokens carry the version they were issued with; bumping it revokes all of the user's tokens
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    private int tokenVersion = 0;
+
     // Profile picture fields - direct storage instead of reference
     @Column(name = "profile_picture_url")
     private String profilePictureUrl; // URL/path to the profile picture
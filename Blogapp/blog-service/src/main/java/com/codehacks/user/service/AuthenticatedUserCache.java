@@ -0,0 +1,46 @@
+package com.codehacks.user.service;
+
+import com.codehacks.user.model.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.function.Supplier;
+
+/**
+ * In-process near-cache of authenticated principals, so requests carrying a token seen recently
+ * authenticate without a Redis or database round trip. Entries are keyed by token subject plus
+ * issue time, so a fresh login always resolves the user again. UserService evicts a user's
+ * entries when the user is saved, updated or deleted; on other nodes the short TTL bounds how
+ * long a stale snapshot can be used.
+ */
+@Service
+public class AuthenticatedUserCache {
+
+    private final Cache<String, AuthenticatedUser> principals;
+
+    public AuthenticatedUserCache(@Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+                                  @Value("${app.security.principal-cache.ttl:60000}") long ttlMillis) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+    }
+
+    public AuthenticatedUser get(String subject, Date issuedAt, Supplier<AuthenticatedUser> loader) {
+        String key = subject + "|" + (issuedAt == null ? 0 : issuedAt.getTime());
+        return principals.get(key, k -> loader.get());
+    }
+
+    /**
+     * Drops every cached principal of the user, whichever token it was cached for.
+     */
+    public void evict(Long userId, String email) {
+        principals.asMap().values().removeIf(principal ->
+                (userId != null && userId.equals(principal.getId()))
+                        || (email != null && email.equals(principal.getEmail())));
+    }
+}
@@ -25,6 +25,7 @@ public class UserService implements UserDetailsService {
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -72,6 +73,7 @@ public class UserService implements UserDetailsService {
         evict = {
             @CacheEvict(value = "users", key = "#user.email"),
             @CacheEvict(value = "users", key = "#user.username"),
+            @CacheEvict(value = "users", key = "'token-version:' + #result.id"),
             @CacheEvict(value = "users", key = "'all'")
         }
     )
@@ -83,8 +85,19 @@ public class UserService implements UserDetailsService {
             log.warn("Attempted to save user with existing email: {}", user.getEmail());
             throw new IllegalArgumentException("User with this email already exists");
         }
+
+        // Tokens carry the email as subject and the role as a claim: revoke them when either changes.
+        // Compared with the stored row, as the user may be the managed instance findById would return
+        if (user.getId() != null) {
+            userRepository.findStoredCredentialsById(user.getId()).ifPresent(stored -> {
+                boolean credentialsChanged = !stored.email().equals(user.getEmail())
+                        || stored.role() != user.getRole();
+                user.setTokenVersion(stored.tokenVersion() + (credentialsChanged ? 1 : 0));
+            });
+        }
         
         User savedUser = userRepository.save(user);
+        authenticatedUserCache.evict(savedUser.getId(), user.getEmail());
         log.info("User saved with ID: {}", savedUser.getId());
         return savedUser;
     }
@@ -93,6 +106,7 @@ public class UserService implements UserDetailsService {
     @Caching(
         evict = {
             @CacheEvict(value = "users", key = "#id"),
+            @CacheEvict(value = "users", key = "'token-version:' + #id"),
             @CacheEvict(value = "users", key = "'all'")
         }
     )
@@ -105,9 +119,46 @@ public class UserService implements UserDetailsService {
         }
         
         userRepository.deleteById(id);
+        authenticatedUserCache.evict(id, null);
         log.info("User deleted with ID: {}", id);
     }
 
+    /**
+     * Current token version of a user, checked against claims-bearing tokens. Served from the
+     * users cache, so the check rarely leaves the process; -1 (never a valid version) when the
+     * user no longer exists.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(value = "users", key = "'token-version:' + #userId")
+    public int getTokenVersion(Long userId) {
+        return userRepository.findTokenVersionById(userId).orElse(-1);
+    }
+
+    /**
+     * Revokes every token issued to the user so far by bumping the user's token version.
+     */
+    @Transactional
+    @Caching(
+        evict = {
+            @CacheEvict(value = "users", key = "'token-version:' + #id"),
+            @CacheEvict(value = "users", key = "#id"),
+            @CacheEvict(value = "users", key = "#result.email"),
+            @CacheEvict(value = "auth", key = "'token:' + #result.email"),
+            @CacheEvict(value = "auth", key = "'refresh:' + #result.email")
+        }
+    )
+    public User revokeTokens(Long id) {
+        if (userRepository.incrementTokenVersion(id) == 0) {
+            log.warn("Attempted to revoke tokens of non-existent user with ID: {}", id);
+            throw new IllegalArgumentException("User not found with ID: " + id);
+        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + id));
+        authenticatedUserCache.evict(id, user.getEmail());
+        log.info("Tokens revoked for user with ID: {} (token version {})", id, user.getTokenVersion());
+        return user;
+    }
+
     @Transactional
     @Caching(
         put = @CachePut(value = "users", key = "#id"),
@@ -130,6 +181,7 @@ public class UserService implements UserDetailsService {
         existingUser.setUsername(updatedUser.getUsername());
         
         User savedUser = userRepository.save(existingUser);
+        authenticatedUserCache.evict(id, savedUser.getEmail());
         log.info("User updated with ID: {}", savedUser.getId());
         return savedUser;
     }
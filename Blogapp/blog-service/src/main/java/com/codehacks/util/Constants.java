@@ -34,6 +34,8 @@ public final class Constants {
     // Post-specific endpoints
     public static final String POST_BY_ID_ENDPOINT = POSTS_PATH + "/{id}";
     public static final String ALL_POSTS_ENDPOINT = POSTS_PATH;
+    public static final String POSTS_FEED_ENDPOINT = POSTS_PATH + "/feed";
+    public static final String POSTS_BY_AUTHOR_ENDPOINT = POSTS_PATH + "/author/{authorId}";
     public static final String CREATE_POST_ENDPOINT = POSTS_PATH;
     public static final String UPDATE_POST_ENDPOINT = POSTS_PATH + "/{id}";
     public static final String DELETE_POST_ENDPOINT = POSTS_PATH + "/{id}";
@@ -74,11 +76,13 @@ public final class Constants {
     public static final String GET_USER_RECENT_COMMENT_ENDPOINT = COMMENTS_PATH + "/user/{userId}/recent";
     public static final String COUNT_COMMENTS_BY_STATUS_ENDPOINT = COMMENTS_PATH + "/count/status/{status}";
     public static final String COUNT_COMMENTS_BY_POST_ENDPOINT = COMMENTS_PATH + "/count/post/{postId}";
+    public static final String COUNT_COMMENTS_BY_POSTS_ENDPOINT = COMMENTS_PATH + "/count/posts";
     
     // Image-specific endpoints
     public static final String UPLOAD_IMAGE_ENDPOINT = IMAGES_PATH + "/upload";
     public static final String UPLOAD_PROFILE_PICTURE_ENDPOINT = IMAGES_PATH + "/profile-picture";
     public static final String GET_IMAGE_BY_ID_ENDPOINT = IMAGES_PATH + "/{id}"; // Public for featured images only
+    public static final String GET_IMAGE_STATUS_ENDPOINT = IMAGES_PATH + "/{id}/status"; // Uploader or admin
     public static final String GET_IMAGE_FILE_ENDPOINT = IMAGES_PATH + "/{id}/file"; // Public for featured images only
     public static final String GET_USER_PROFILE_PICTURE_ENDPOINT = IMAGES_PATH + "/profile/{userId}"; // Authenticated users only
     public static final String GET_IMAGES_BY_TYPE_ENDPOINT = IMAGES_PATH + "/type/{imageType}";
@@ -0,0 +1,3 @@
+-- Keyset pages of the image garbage collector's failed-image step: active images whose processing FAILED
+CREATE INDEX IF NOT EXISTS idx_image_failed_active ON images (id)
+    WHERE status = 'FAILED' AND is_active = true;
@@ -0,0 +1,108 @@
+-- Schema as previously generated by Hibernate (ddl-auto) from the entities. Databases that were
+-- created that way are baselined at this version and only receive the migrations after it.
+
+CREATE TABLE blog_users (
+    id                       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username                 varchar(255) NOT NULL UNIQUE,
+    email                    varchar(255) NOT NULL UNIQUE,
+    first_name               varchar(255) NOT NULL,
+    last_name                varchar(255) NOT NULL,
+    password                 varchar(255),
+    role                     varchar(255) CHECK (role IN ('USER', 'ADMIN')),
+    profile_picture_url      varchar(255),
+    profile_picture_filename varchar(255)
+);
+
+CREATE INDEX idx_user_email ON blog_users (email);
+CREATE INDEX idx_user_username ON blog_users (username);
+CREATE INDEX idx_user_role ON blog_users (role);
+
+CREATE TABLE posts (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title             varchar(255) NOT NULL,
+    content           text NOT NULL,
+    author_id         bigint NOT NULL,
+    status            varchar(255) NOT NULL CHECK (status IN ('DRAFT', 'PUBLISHED')),
+    image_url         varchar(255),
+    featured_image_id bigint,
+    claps_count       integer NOT NULL,
+    created_at        timestamp(6) NOT NULL,
+    updated_at        timestamp(6) NOT NULL
+);
+
+CREATE INDEX idx_post_status ON posts (status);
+CREATE INDEX idx_post_author ON posts (author_id);
+CREATE INDEX idx_post_status_created ON posts (status, created_at);
+CREATE INDEX idx_post_author_status ON posts (author_id, status);
+
+CREATE TABLE claps (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    bigint NOT NULL,
+    post_id    bigint NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    UNIQUE (user_id, post_id)
+);
+
+CREATE INDEX idx_clap_user_post ON claps (user_id, post_id);
+CREATE INDEX idx_clap_post ON claps (post_id);
+CREATE INDEX idx_clap_user ON claps (user_id);
+
+CREATE TABLE comments (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content         text NOT NULL,
+    author_id       bigint NOT NULL REFERENCES blog_users,
+    post_id         bigint NOT NULL REFERENCES posts,
+    parent_id       bigint REFERENCES comments,
+    status          varchar(255) NOT NULL CHECK (status IN ('PENDING', 'APPROVED', 'SPAM', 'DELETED')),
+    moderated_by    bigint,
+    moderated_at    timestamp(6),
+    moderation_note varchar(255),
+    created_at      timestamp(6) NOT NULL,
+    updated_at      timestamp(6)
+);
+
+CREATE TABLE images (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    file_name        varchar(255) NOT NULL,
+    stored_file_name varchar(255) NOT NULL,
+    file_path        varchar(255) NOT NULL,
+    content_type     varchar(255) NOT NULL,
+    file_size        bigint NOT NULL,
+    width            integer NOT NULL,
+    height           integer NOT NULL,
+    image_type       varchar(255) NOT NULL CHECK (image_type IN ('PROFILE_PICTURE', 'FEATURED_IMAGE')),
+    alt_text         varchar(255),
+    description      varchar(255),
+    uploader_id      bigint NOT NULL REFERENCES blog_users,
+    is_active        boolean NOT NULL,
+    created_at       timestamp(6) NOT NULL,
+    updated_at       timestamp(6) NOT NULL
+);
+
+CREATE TABLE subscriptions (
+    id                     bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email                  varchar(255) NOT NULL UNIQUE,
+    token                  varchar(255) NOT NULL UNIQUE,
+    status                 varchar(255) NOT NULL CHECK (status IN ('PENDING', 'ACTIVE', 'INACTIVE', 'SUSPENDED')),
+    notification_type      varchar(255) NOT NULL CHECK (notification_type IN ('INSTANT', 'DAILY', 'WEEKLY', 'NONE')),
+    active                 boolean NOT NULL,
+    email_verified         boolean NOT NULL,
+    verified_at            timestamp(6),
+    last_notification_sent timestamp(6),
+    created_at             timestamp(6) NOT NULL,
+    updated_at             timestamp(6) NOT NULL
+);
+
+CREATE TABLE notification_logs (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    subscription_id   bigint NOT NULL REFERENCES subscriptions,
+    email             varchar(255) NOT NULL,
+    post_id           bigint,
+    notification_type varchar(255) NOT NULL CHECK (notification_type IN ('INSTANT', 'DAILY', 'WEEKLY', 'NONE')),
+    status            varchar(255) NOT NULL CHECK (status IN ('PENDING', 'SENT', 'FAILED', 'BOUNCED', 'COMPLAINED')),
+    subject           varchar(255) NOT NULL,
+    content           text,
+    error_message     text,
+    sent_at           timestamp(6),
+    created_at        timestamp(6) NOT NULL
+);
@@ -0,0 +1,34 @@
+-- Bumped to revoke a user's outstanding tokens; each JWT carries the version it was issued at
+ALTER TABLE blog_users ADD COLUMN IF NOT EXISTS token_version integer DEFAULT 0 NOT NULL;
+
+-- Full-text search document for posts. Not mapped on Post; PostRepository keeps it current on
+-- every write (SEARCH_VECTOR_EXPRESSION), this fills it for rows written before it existed.
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE INDEX IF NOT EXISTS idx_post_search_vector ON posts USING GIN (search_vector);
+
+UPDATE posts
+SET search_vector = setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('english', coalesce(content, '')), 'B')
+WHERE search_vector IS NULL;
+
+-- Per-post comment counters by status, kept by the comment service instead of counting rows
+CREATE TABLE IF NOT EXISTS post_comment_counters (
+    post_id  bigint PRIMARY KEY,
+    approved bigint NOT NULL,
+    pending  bigint NOT NULL,
+    spam     bigint NOT NULL,
+    deleted  bigint NOT NULL
+);
+
+-- Seed the per-post comment counters from comments written before the counters existed; from
+-- here on the comment service maintains them
+INSERT INTO post_comment_counters (post_id, approved, pending, spam, deleted)
+SELECT c.post_id,
+       count(*) FILTER (WHERE c.status = 'APPROVED'),
+       count(*) FILTER (WHERE c.status = 'PENDING'),
+       count(*) FILTER (WHERE c.status = 'SPAM'),
+       count(*) FILTER (WHERE c.status = 'DELETED')
+FROM comments c
+GROUP BY c.post_id
+ON CONFLICT (post_id) DO NOTHING;
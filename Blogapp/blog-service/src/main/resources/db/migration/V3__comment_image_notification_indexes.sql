@@ -0,0 +1,31 @@
+-- Indexes for the repository queries on comments, images, notification logs and subscriptions.
+-- Queries that always filter on a fixed status or is_active = true get partial indexes.
+-- QueryPlanTest fails when one of these queries needs a sequential scan.
+
+-- Comments
+CREATE INDEX IF NOT EXISTS idx_comment_post_status_created ON comments (post_id, status, created_at);
+CREATE INDEX IF NOT EXISTS idx_comment_post_approved_roots ON comments (post_id, created_at DESC)
+    WHERE status = 'APPROVED' AND parent_id IS NULL;
+CREATE INDEX IF NOT EXISTS idx_comment_parent_status_created ON comments (parent_id, status, created_at)
+    WHERE parent_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_comment_author_created ON comments (author_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_comment_status_created ON comments (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_comment_created ON comments (created_at);
+
+-- Images: every lookup is restricted to active images
+CREATE INDEX IF NOT EXISTS idx_image_uploader_active ON images (uploader_id, file_name) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_image_type_active_created ON images (image_type, created_at DESC) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_image_content_type_active_created ON images (content_type, created_at DESC) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_image_active_created ON images (created_at DESC) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_image_active_file_size ON images (file_size DESC) WHERE is_active;
+
+-- Notification logs
+CREATE INDEX IF NOT EXISTS idx_notification_log_status_created ON notification_logs (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_notification_log_subscription_created ON notification_logs (subscription_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_notification_log_email_created ON notification_logs (email, created_at);
+CREATE INDEX IF NOT EXISTS idx_notification_log_post_created ON notification_logs (post_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_notification_log_created ON notification_logs (created_at);
+
+-- Subscriptions (email and token are unique, so already indexed)
+CREATE INDEX IF NOT EXISTS idx_subscription_status_type_active ON subscriptions (status, notification_type)
+    WHERE active;
@@ -0,0 +1,7 @@
+-- Uploads are processed by background workers; rows stay PENDING until their file is written.
+-- Existing images were processed synchronously, so they are READY.
+ALTER TABLE images ADD COLUMN status varchar(255) NOT NULL DEFAULT 'READY'
+    CHECK (status IN ('PENDING', 'READY', 'FAILED'));
+
+-- Only the stale-job sweep looks up images by status
+CREATE INDEX IF NOT EXISTS idx_image_pending_updated ON images (updated_at) WHERE status = 'PENDING';
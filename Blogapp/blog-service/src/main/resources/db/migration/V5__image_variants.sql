@@ -0,0 +1,9 @@
+-- Downscaled copies of each image, one row per generated width
+CREATE TABLE image_variants (
+    image_id  bigint NOT NULL REFERENCES images ON DELETE CASCADE,
+    width     integer NOT NULL,
+    height    integer NOT NULL,
+    file_size bigint NOT NULL,
+    file_path varchar(255) NOT NULL,
+    PRIMARY KEY (image_id, width)
+);
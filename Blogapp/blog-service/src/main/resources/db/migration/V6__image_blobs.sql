@@ -0,0 +1,43 @@
+-- Content-addressed storage: images with the same uploaded bytes (SHA-256) and format share one
+-- stored file, processed once and reference counted.
+CREATE TABLE image_blobs (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content_hash varchar(64),
+    format       varchar(255) NOT NULL,
+    file_path    varchar(255) NOT NULL,
+    file_size    bigint NOT NULL,
+    width        integer NOT NULL,
+    height       integer NOT NULL,
+    status       varchar(255) NOT NULL CHECK (status IN ('PENDING', 'READY', 'FAILED')),
+    ref_count    integer NOT NULL,
+    created_at   timestamp(6) NOT NULL,
+    updated_at   timestamp(6) NOT NULL,
+    UNIQUE (content_hash, format)
+);
+
+-- Existing images were never hashed: each gets a blob of its own, with the image's id
+INSERT INTO image_blobs (id, content_hash, format, file_path, file_size, width, height, status, ref_count,
+                         created_at, updated_at)
+SELECT id, NULL, lower(substring(stored_file_name from '[^.]*$')), file_path, file_size, width, height, status,
+       CASE WHEN is_active THEN 1 ELSE 0 END, created_at, updated_at
+FROM images;
+SELECT setval(pg_get_serial_sequence('image_blobs', 'id'), COALESCE((SELECT MAX(id) FROM image_blobs), 0) + 1, false);
+
+ALTER TABLE images ADD COLUMN blob_id bigint REFERENCES image_blobs;
+UPDATE images SET blob_id = id;
+CREATE INDEX IF NOT EXISTS idx_image_blob ON images (blob_id);
+-- Finishing a job updates the images still waiting on its blob; the same small partial index serves
+-- the stale-job sweep, which reads every pending image anyway
+DROP INDEX IF EXISTS idx_image_pending_updated;
+CREATE INDEX IF NOT EXISTS idx_image_pending_blob ON images (blob_id, updated_at) WHERE status = 'PENDING';
+
+-- Variants belong to the stored content rather than to each image referencing it
+ALTER TABLE image_variants ADD COLUMN blob_id bigint REFERENCES image_blobs ON DELETE CASCADE;
+UPDATE image_variants SET blob_id = image_id;
+ALTER TABLE image_variants DROP CONSTRAINT image_variants_pkey;
+ALTER TABLE image_variants DROP COLUMN image_id;
+ALTER TABLE image_variants ALTER COLUMN blob_id SET NOT NULL;
+ALTER TABLE image_variants ADD PRIMARY KEY (blob_id, width);
+
+-- Only the stale-job sweep looks up blobs by status
+CREATE INDEX IF NOT EXISTS idx_image_blob_pending_updated ON image_blobs (updated_at) WHERE status = 'PENDING';
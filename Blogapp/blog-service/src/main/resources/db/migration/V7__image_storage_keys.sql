@@ -0,0 +1,6 @@
+-- Stored files are addressed by image storage key (relative to the storage root) instead of by file
+-- system path. Files stored so far sit flat in the upload directory, the local storage root, so their
+-- key is their file name; new files get keys under content-hash shard directories.
+UPDATE image_blobs SET file_path = regexp_replace(file_path, '^.*[/\\]', '') WHERE file_path ~ '[/\\]';
+UPDATE images SET file_path = regexp_replace(file_path, '^.*[/\\]', '') WHERE file_path ~ '[/\\]';
+UPDATE image_variants SET file_path = regexp_replace(file_path, '^.*[/\\]', '') WHERE file_path ~ '[/\\]';
@@ -0,0 +1,18 @@
+-- A blob's reference count is the number of images attached to it. The V6 backfill counted only
+-- active images; inactive ones keep their reference until the garbage collector releases it.
+UPDATE image_blobs b SET ref_count = (SELECT count(*) FROM images i WHERE i.blob_id = b.id);
+
+-- Keyset pages of the image garbage collector: active profile pictures (and, per user, the newer
+-- ones that supersede them), inactive images still attached to a blob, and unreferenced blobs
+CREATE INDEX IF NOT EXISTS idx_image_profile_active ON images (id)
+    WHERE image_type = 'PROFILE_PICTURE' AND is_active = true;
+CREATE INDEX IF NOT EXISTS idx_image_profile_active_uploader ON images (uploader_id, id)
+    WHERE image_type = 'PROFILE_PICTURE' AND is_active = true;
+CREATE INDEX IF NOT EXISTS idx_image_inactive_attached ON images (id)
+    WHERE is_active = false AND blob_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_image_blob_unreferenced ON image_blobs (id)
+    WHERE ref_count = 0 AND status <> 'PENDING';
+
+-- The orphaned-file sweep looks stored keys up against blobs and their variants
+CREATE INDEX IF NOT EXISTS idx_image_blob_file_path ON image_blobs (file_path);
+CREATE INDEX IF NOT EXISTS idx_image_variant_file_path ON image_variants (file_path);
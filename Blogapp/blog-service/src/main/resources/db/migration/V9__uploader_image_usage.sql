@@ -0,0 +1,20 @@
+-- Per-uploader image counts and bytes, maintained by the image service on upload, processing and
+-- deactivation, so usage stats and quota checks read one row instead of summing the uploader's images
+CREATE TABLE uploader_image_usage (
+    uploader_id      bigint PRIMARY KEY,
+    image_count      bigint NOT NULL,
+    total_bytes      bigint NOT NULL,
+    profile_pictures bigint NOT NULL,
+    featured_images  bigint NOT NULL
+);
+
+-- Seed the counters from the active images uploaded before they existed
+INSERT INTO uploader_image_usage (uploader_id, image_count, total_bytes, profile_pictures, featured_images)
+SELECT i.uploader_id,
+       count(*),
+       COALESCE(sum(i.file_size), 0),
+       count(*) FILTER (WHERE i.image_type = 'PROFILE_PICTURE'),
+       count(*) FILTER (WHERE i.image_type = 'FEATURED_IMAGE')
+FROM images i
+WHERE i.is_active = true
+GROUP BY i.uploader_id;
@@ -23,6 +23,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -194,6 +195,20 @@ class CommentControllerTest {
         verify(commentService).countCommentsByPostId(1L);
     }
 
+    @Test
+    void shouldCountCommentsForManyPosts() throws Exception {
+        // Given
+        when(commentService.countCommentsByPostIds(List.of(1L, 2L))).thenReturn(Map.of(1L, 3L, 2L, 0L));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/comments/count/posts").param("postIds", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1").value(3))
+                .andExpect(jsonPath("$.2").value(0));
+
+        verify(commentService).countCommentsByPostIds(List.of(1L, 2L));
+    }
+
     @Test
     void shouldReturnEmptyListWhenNoComments() throws Exception {
         // Given
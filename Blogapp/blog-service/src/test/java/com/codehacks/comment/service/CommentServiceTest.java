@@ -4,9 +4,12 @@ import com.codehacks.comment.dto.CommentModerationRequest;
 import com.codehacks.comment.dto.CommentRequest;
 import com.codehacks.comment.dto.CommentResponse;
 import com.codehacks.comment.dto.CommentStatistics;
+import com.codehacks.comment.dto.PostCommentCounts;
 import com.codehacks.comment.model.Comment;
 import com.codehacks.comment.model.CommentStatus;
+import com.codehacks.comment.model.PostCommentCounter;
 import com.codehacks.comment.repository.CommentRepository;
+import com.codehacks.comment.repository.PostCommentCounterRepository;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.model.PostStatus;
 import com.codehacks.post.repository.PostRepository;
@@ -24,14 +27,20 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -47,6 +56,9 @@ class CommentServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PostCommentCounterRepository postCommentCounterRepository;
+
     @InjectMocks
     private CommentServiceImpl commentService;
 
@@ -104,6 +116,7 @@ class CommentServiceTest {
         assertThat(response.getAuthorId()).isEqualTo(1L);
         assertThat(response.getPostId()).isEqualTo(1L);
         verify(commentRepository).save(any(Comment.class));
+        verify(postCommentCounterRepository).adjust(1L, 1, 0, 0, 0);
     }
 
     @Test
@@ -180,7 +193,7 @@ class CommentServiceTest {
     void shouldGetApprovedCommentsByPostId() {
         // Given
         List<Comment> comments = List.of(testComment);
-        when(commentRepository.findApprovedCommentsByPostId(1L)).thenReturn(comments);
+        when(commentRepository.findApprovedThreadByPostId(1L)).thenReturn(comments);
 
         // When
         List<CommentResponse> responses = commentService.getApprovedCommentsByPostId(1L);
@@ -190,6 +203,52 @@ class CommentServiceTest {
         assertThat(responses.get(0).getContent()).isEqualTo("Test comment");
     }
 
+    @Test
+    void shouldAssembleApprovedThreadFromSingleQuery() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 12, 0);
+        Comment older = comment(1L, null, start);
+        Comment newer = comment(2L, null, start.plusMinutes(1));
+        Comment reply = comment(3L, older, start.plusMinutes(2));
+        Comment nestedReply = comment(4L, reply, start.plusMinutes(3));
+        Comment laterReply = comment(5L, older, start.plusMinutes(4));
+        when(commentRepository.findApprovedThreadByPostId(1L))
+                .thenReturn(List.of(older, newer, reply, nestedReply, laterReply));
+        when(postRepository.findTitleById(1L)).thenReturn(Optional.of("Thread title"));
+
+        // When
+        List<CommentResponse> responses = commentService.getApprovedCommentsByPostId(1L);
+
+        // Then - The title is loaded once for the thread, not through each comment's post
+        assertThat(responses).extracting(CommentResponse::getId).containsExactly(2L, 1L);
+        assertThat(responses).extracting(CommentResponse::getPostTitle).containsOnly("Thread title");
+        assertThat(responses.get(1).getReplies().get(0).getPostTitle()).isEqualTo("Thread title");
+        verify(postRepository, times(1)).findTitleById(1L);
+        CommentResponse thread = responses.get(1);
+        assertThat(thread.isHasReplies()).isTrue();
+        assertThat(thread.getReplies()).extracting(CommentResponse::getId).containsExactly(3L, 5L);
+        assertThat(thread.getReplies().get(0).getReplies()).extracting(CommentResponse::getId).containsExactly(4L);
+        assertThat(responses.get(0).getReplies()).isEmpty();
+        assertThat(responses.get(0).isHasReplies()).isFalse();
+    }
+
+    @Test
+    void shouldGetNestedRepliesByCommentIdInTwoQueries() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 12, 0);
+        Comment reply = comment(3L, testComment, start);
+        Comment nestedReply = comment(4L, reply, start.plusMinutes(1));
+        when(commentRepository.findApprovedReplyIdsBelow(List.of(1L))).thenReturn(List.of(3L, 4L));
+        when(commentRepository.findWithAuthorByIdIn(List.of(3L, 4L))).thenReturn(List.of(reply, nestedReply));
+
+        // When
+        List<CommentResponse> responses = commentService.getRepliesByCommentId(1L);
+
+        // Then
+        assertThat(responses).extracting(CommentResponse::getId).containsExactly(3L);
+        assertThat(responses.get(0).getReplies()).extracting(CommentResponse::getId).containsExactly(4L);
+    }
+
     @Test
     void shouldGetCommentsByPostIdWithPagination() {
         // Given
@@ -253,6 +312,7 @@ class CommentServiceTest {
         // Then
         verify(commentRepository).save(any(Comment.class));
         assertThat(testComment.getStatus()).isEqualTo(CommentStatus.DELETED);
+        verify(postCommentCounterRepository).adjust(1L, -1, 0, 0, 1);
     }
 
     @Test
@@ -276,18 +336,15 @@ class CommentServiceTest {
         assertThat(testComment.getModeratedBy()).isEqualTo(1L);
         assertThat(testComment.getModerationNote()).isEqualTo("Approved by admin");
         verify(commentRepository).save(testComment);
+        verify(postCommentCounterRepository).adjust(1L, 1, -1, 0, 0);
     }
 
     @Test
     void shouldGetCommentStatistics() {
         // Given
-        when(commentRepository.count()).thenReturn(10L);
-        when(commentRepository.countByStatus(CommentStatus.APPROVED)).thenReturn(7L);
-        when(commentRepository.countByStatus(CommentStatus.PENDING)).thenReturn(2L);
-        when(commentRepository.countByStatus(CommentStatus.SPAM)).thenReturn(1L);
-        when(commentRepository.countByStatus(CommentStatus.DELETED)).thenReturn(0L);
-        when(commentRepository.findAll()).thenReturn(List.of(testComment));
-        when(commentRepository.findCommentsCreatedAfter(any(LocalDateTime.class))).thenReturn(List.of(testComment));
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        when(commentRepository.aggregateStatistics(today, today.minusDays(7), today.minusDays(30)))
+                .thenReturn(new CommentStatistics(10L, 7L, 2L, 1L, 0L, 3L, 1L, 4L, 9L));
 
         // When
         CommentStatistics statistics = commentService.getCommentStatistics();
@@ -299,6 +356,9 @@ class CommentServiceTest {
         assertThat(statistics.getPendingComments()).isEqualTo(2L);
         assertThat(statistics.getSpamComments()).isEqualTo(1L);
         assertThat(statistics.getDeletedComments()).isEqualTo(0L);
+        assertThat(statistics.getTotalReplies()).isEqualTo(3L);
+        assertThat(statistics.getCommentsThisMonth()).isEqualTo(9L);
+        verify(commentRepository, never()).findAll();
     }
 
     @Test
@@ -358,12 +418,59 @@ class CommentServiceTest {
     @Test
     void shouldCountCommentsByPostId() {
         // Given
-        when(commentRepository.countByPostIdAndStatus(1L, CommentStatus.APPROVED)).thenReturn(3L);
+        when(postCommentCounterRepository.findById(1L))
+                .thenReturn(Optional.of(PostCommentCounter.builder().postId(1L).approved(3L).pending(2L).build()));
 
         // When
         long count = commentService.countCommentsByPostId(1L);
 
         // Then
         assertThat(count).isEqualTo(3L);
+        verify(commentRepository, never()).countByPostIdAndStatus(any(), any());
+    }
+
+    @Test
+    void shouldCountCommentsForManyPostsInOneLookup() {
+        // Given
+        List<Long> postIds = List.of(3L, 1L, 2L);
+        when(postCommentCounterRepository.findByPostIdIn(Set.of(3L, 1L, 2L))).thenReturn(List.of(
+                PostCommentCounter.builder().postId(1L).approved(4L).spam(1L).build(),
+                PostCommentCounter.builder().postId(3L).approved(2L).pending(5L).build()));
+
+        // When
+        Map<Long, Long> counts = commentService.countCommentsByPostIds(postIds);
+        Map<Long, PostCommentCounts> byStatus = commentService.getCommentCountsByPostIds(postIds);
+
+        // Then
+        assertThat(counts).containsExactly(Map.entry(3L, 2L), Map.entry(1L, 4L), Map.entry(2L, 0L));
+        assertThat(byStatus.get(3L).getPending()).isEqualTo(5L);
+        assertThat(byStatus.get(1L).getSpam()).isEqualTo(1L);
+        assertThat(byStatus.get(2L)).isEqualTo(PostCommentCounts.empty(2L));
+    }
+
+    @Test
+    void shouldNotTouchCountersWhenStatusIsUnchanged() {
+        // Given
+        testComment.setStatus(CommentStatus.DELETED);
+        when(commentRepository.findById(1L)).thenReturn(Optional.of(testComment));
+        when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
+
+        // When
+        commentService.deleteComment(1L, 1L);
+
+        // Then
+        verify(postCommentCounterRepository, never()).adjust(any(), anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    private Comment comment(Long id, Comment parent, LocalDateTime createdAt) {
+        return Comment.builder()
+                .id(id)
+                .content("Comment " + id)
+                .author(testUser)
+                .post(testPost)
+                .parentComment(parent)
+                .status(CommentStatus.APPROVED)
+                .createdAt(createdAt)
+                .build();
     }
-} 
\ No newline at end of file
+}
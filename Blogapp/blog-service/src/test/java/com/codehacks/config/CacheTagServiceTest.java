@@ -0,0 +1,94 @@
+package com.codehacks.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheTagServiceTest {
+
+    private Cache cache;
+    private CacheTagService cacheTagService;
+
+    @BeforeEach
+    void setUp() {
+        // Tags every entry with "item:<n>" for each number in its value, plus "list" for list keys
+        CacheTagResolver resolver = new CacheTagResolver() {
+            @Override
+            public String cacheName() {
+                return "items";
+            }
+
+            @Override
+            public Set<String> tagsFor(Object key, Object value) {
+                Set<String> tags = new HashSet<>();
+                if (String.valueOf(key).startsWith("list:")) {
+                    tags.add("list");
+                }
+                if (value instanceof List<?> items) {
+                    items.forEach(item -> tags.add("item:" + item));
+                } else {
+                    tags.add("item:" + value);
+                }
+                return tags;
+            }
+        };
+        CacheTagIndex index = new InMemoryCacheTagIndex();
+        TaggingCacheManager cacheManager =
+                new TaggingCacheManager(new ConcurrentMapCacheManager("items", "other"), index, List.of(resolver));
+        cache = cacheManager.getCache("items");
+        cacheTagService = new CacheTagService(cacheManager, index);
+    }
+
+    @Test
+    void evictTags_shouldEvictOnlyEntriesCarryingTheTag() {
+        cache.put(1L, 1);
+        cache.put(2L, 2);
+        cache.put("list:a", List.of(1, 3));
+        cache.put("list:b", List.of(2, 3));
+
+        cacheTagService.evictTags("items", List.of("item:1"));
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get("list:a")).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+        assertThat(cache.get("list:b")).isNotNull();
+    }
+
+    @Test
+    void evictTags_shouldEvictWholeGroupByListTag() {
+        cache.put(1L, 1);
+        cache.put("list:a", List.of(1));
+        cache.put("list:b", List.of(2));
+
+        cacheTagService.evictTags("items", List.of("list"));
+
+        assertThat(cache.get("list:a")).isNull();
+        assertThat(cache.get("list:b")).isNull();
+        assertThat(cache.get(1L)).isNotNull();
+    }
+
+    @Test
+    void taggingCache_shouldTreatLongAndStringKeysAsTheSameEntry() {
+        cache.put(5L, 5);
+
+        assertThat(cache.get("5")).isNotNull();
+        cacheTagService.evictTags("items", List.of("item:5"));
+        assertThat(cache.get(5L)).isNull();
+    }
+
+    @Test
+    void taggingCache_shouldTagValuesLoadedThroughValueLoader() {
+        cache.get(7L, () -> 7);
+
+        cacheTagService.evictTags("items", List.of("item:7"));
+
+        assertThat(cache.get(7L)).isNull();
+    }
+}
@@ -0,0 +1,108 @@
+package com.codehacks.config;
+
+import com.codehacks.post.dto.PostFeedPage;
+import com.codehacks.post.dto.PostSummaryResponse;
+import com.codehacks.post.model.Post;
+import com.codehacks.post.model.PostStatus;
+import com.codehacks.user.model.User;
+import com.codehacks.user.model.UserRole;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheValueSerializerTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 3, 1, 12, 30, 15);
+
+    @ParameterizedTest
+    @EnumSource(CacheValueSerializer.Format.class)
+    void roundTrip_shouldPreserveCachedEntities(CacheValueSerializer.Format format) {
+        CacheValueSerializer serializer = new CacheValueSerializer(format, 0);
+        Post post = post("Short content");
+        User user = User.builder().id(3L).username("jane").firstName("Jane").lastName("Doe")
+                .email("jane@example.com").role(UserRole.USER).build();
+
+        assertThat(serializer.deserialize(serializer.serialize(post))).isEqualTo(post);
+        assertThat(serializer.deserialize(serializer.serialize(user))).isEqualTo(user);
+        assertThat(serializer.deserialize(serializer.serialize(42L))).isEqualTo(42L);
+        assertThat(serializer.deserialize(serializer.serialize("token"))).isEqualTo("token");
+        assertThat(serializer.deserialize(serializer.serialize(NullValue.INSTANCE))).isSameAs(NullValue.INSTANCE);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheValueSerializer.Format.class)
+    void roundTrip_shouldPreserveListsAndTwoLevelEnvelope(CacheValueSerializer.Format format) {
+        CacheValueSerializer serializer = new CacheValueSerializer(format, 0);
+        List<PostSummaryResponse> summaries = Stream.of(summary(1L), summary(2L)).toList();
+        PostFeedPage page = new PostFeedPage(new ArrayList<>(summaries), "cursor", true);
+        CachedValue envelope = new CachedValue(page, 1_700_000_000_000L, 12);
+
+        assertThat(serializer.deserialize(serializer.serialize(summaries))).isEqualTo(summaries);
+        assertThat(serializer.deserialize(serializer.serialize(envelope))).isEqualTo(envelope);
+    }
+
+    @Test
+    void serialize_shouldCompressLargeValuesOnly() {
+        CacheValueSerializer serializer = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 1024);
+        Post small = post("Short content");
+        Post large = post("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(200));
+
+        byte[] smallBytes = serializer.serialize(small);
+        byte[] largeBytes = serializer.serialize(large);
+
+        assertThat(new String(smallBytes, 0, 3, StandardCharsets.US_ASCII)).isEqualTo(":)\n");
+        assertThat(largeBytes.length).isLessThan(large.getContent().length() / 4);
+        assertThat(serializer.deserialize(largeBytes)).isEqualTo(large);
+    }
+
+    @Test
+    void deserialize_shouldReadValuesWrittenInEitherFormat() {
+        CacheValueSerializer smile = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 0);
+        CacheValueSerializer json = new CacheValueSerializer(CacheValueSerializer.Format.JSON, 0);
+        Post post = post("Content");
+
+        assertThat(smile.deserialize(json.serialize(post))).isEqualTo(post);
+        assertThat(json.deserialize(smile.serialize(post))).isEqualTo(post);
+        // Entries written by the previous GenericJackson2JsonRedisSerializer configuration
+        assertThat(smile.deserialize(new GenericJackson2JsonRedisSerializer().serialize("legacy"))).isEqualTo("legacy");
+    }
+
+    @Test
+    void smile_shouldBeSmallerThanJson() {
+        Post post = post("Content of a typical post. ".repeat(20));
+
+        byte[] json = new CacheValueSerializer(CacheValueSerializer.Format.JSON, 0).serialize(post);
+        byte[] smile = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 0).serialize(post);
+
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
+    private static Post post(String content) {
+        Post post = new Post();
+        post.setId(7L);
+        post.setTitle("Caching in practice");
+        post.setContent(content);
+        post.setAuthorId(3L);
+        post.setStatus(PostStatus.PUBLISHED);
+        post.setClapsCount(12);
+        post.setCreatedAt(CREATED);
+        post.setUpdatedAt(CREATED.plusHours(1));
+        return post;
+    }
+
+    private static PostSummaryResponse summary(Long id) {
+        return PostSummaryResponse.builder().id(id).title("Post " + id).excerpt("Excerpt " + id)
+                .authorId(3L).authorName("Jane Doe").status(PostStatus.PUBLISHED).clapsCount(5)
+                .createdAt(CREATED).updatedAt(CREATED).build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.codehacks.config;
+
+import com.codehacks.user.model.AuthenticatedUser;
+import com.codehacks.user.model.User;
+import com.codehacks.user.model.UserRole;
+import com.codehacks.user.service.AuthenticatedUserCache;
+import com.codehacks.user.service.UserService;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthFilterTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtService jwtService;
+    private JwtAuthFilter jwtAuthFilter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey",
+            "ZmFrZV9zZWNyZXRfa2V5X2Zvcl90ZXN0aW5nX3B1cnBvc2VzX29ubHlfZG9udF91c2VfaW5fcHJvZHVjdGlvbg==");
+        jwtAuthFilter = new JwtAuthFilter(jwtService, userService, new AuthenticatedUserCache(100, 60_000));
+
+        user = User.builder().id(5L).username("jane").firstName("Jane").lastName("Doe")
+                .email("jane@example.com").role(UserRole.ADMIN).tokenVersion(2).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void claimsBearingToken_shouldAuthenticateWithoutLoadingUser() throws Exception {
+        when(userService.getTokenVersion(5L)).thenReturn(2);
+
+        jwtAuthFilter.doFilter(request(jwtService.generateToken(user)), new MockHttpServletResponse(), filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isInstanceOf(AuthenticatedUser.class);
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertThat(principal.getId()).isEqualTo(5L);
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+        verify(userService, never()).loadUserByUsername(anyString());
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void revokedToken_shouldNotAuthenticate() throws Exception {
+        when(userService.getTokenVersion(5L)).thenReturn(3);
+
+        jwtAuthFilter.doFilter(request(jwtService.generateToken(user)), new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void subjectOnlyToken_shouldResolveUserOncePerToken() throws Exception {
+        String token = jwtService.generateToken(new HashMap<>(), user);
+        when(userService.loadUserByUsername("jane@example.com")).thenReturn(user);
+
+        jwtAuthFilter.doFilter(request(token), new MockHttpServletResponse(), filterChain);
+        SecurityContextHolder.clearContext();
+        jwtAuthFilter.doFilter(request(token), new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("jane@example.com");
+        verify(userService).loadUserByUsername("jane@example.com");
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -1,8 +1,10 @@
 package com.codehacks.config;
 
+import com.codehacks.user.model.AuthenticatedUser;
 import com.codehacks.user.model.User;
 import com.codehacks.user.model.UserRole;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -182,4 +184,72 @@ class JwtServiceTest {
         assertThat(token).isNotNull();
         assertThat(jwtService.extractUsername(token)).isEqualTo(testUser.getEmail());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void parseToken_shouldServeRepeatedTokenFromVerifiedCache() {
+        // Given
+        String token = jwtService.generateToken(testUser);
+
+        // When
+        Claims first = jwtService.parseToken(token);
+        Claims second = jwtService.parseToken(token);
+
+        // Then
+        assertThat(first.getSubject()).isEqualTo(testUser.getEmail());
+        assertThat(second).isSameAs(first);
+        assertThat(jwtService.isTokenValid(second, testUser)).isTrue();
+    }
+
+    @Test
+    void parseToken_withTamperedSignature_shouldThrowEvenWhenOriginalIsCached() {
+        // Given
+        String token = jwtService.generateToken(testUser);
+        jwtService.parseToken(token);
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When & Then
+        assertThatThrownBy(() -> jwtService.parseToken(tampered))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void generateToken_shouldCarryPrincipalClaims() {
+        // Given
+        testUser.setTokenVersion(3);
+        String token = jwtService.generateToken(testUser);
+
+        // When
+        AuthenticatedUser principal = jwtService.principalFromClaims(jwtService.parseToken(token));
+
+        // Then
+        assertThat(principal).isNotNull();
+        assertThat(principal.getId()).isEqualTo(1L);
+        assertThat(principal.getEmail()).isEqualTo(testUser.getEmail());
+        assertThat(principal.getRole()).isEqualTo(UserRole.USER);
+        assertThat(principal.getTokenVersion()).isEqualTo(3);
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void principalFromClaims_withSubjectOnlyToken_shouldReturnNull() {
+        // Given
+        String token = jwtService.generateToken(new HashMap<>(), testUser);
+
+        // When & Then
+        assertThat(jwtService.principalFromClaims(jwtService.parseToken(token))).isNull();
+    }
+
+    @Test
+    void generateToken_withClaimsDisabled_shouldOnlyCarrySubject() {
+        // Given
+        ReflectionTestUtils.setField(jwtService, "claimsEnabled", false);
+
+        // When
+        Claims claims = jwtService.parseToken(jwtService.generateToken(testUser));
+
+        // Then
+        assertThat(claims.getSubject()).isEqualTo(testUser.getEmail());
+        assertThat(claims).doesNotContainKeys(JwtService.USER_ID_CLAIM, JwtService.ROLE_CLAIM);
+    }
+}
@@ -0,0 +1,198 @@
+package com.codehacks.config;
+
+import com.codehacks.user.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ConcurrentMapCache l2;
+    private CacheInvalidationBus invalidationBus;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager l2CacheManager = new ConcurrentMapCacheManager("posts");
+        l2 = (ConcurrentMapCache) l2CacheManager.getCache("posts");
+        invalidationBus = new CacheInvalidationBus(redisTemplate);
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(l2CacheManager,
+                Map.of("posts", 10L), Map.of("posts", Duration.ofMinutes(10)), 10, Duration.ofMinutes(1),
+                1.0, null, invalidationBus);
+        cache = cacheManager.getCache("posts");
+    }
+
+    @Test
+    void get_shouldServeRepeatedReadsFromL1() {
+        l2.put("1", "first");
+        assertThat(cache.get(1L).get()).isEqualTo("first");
+
+        // Changed behind the cache's back: L1 still answers
+        l2.put("1", "second");
+
+        assertThat(cache.get(1L).get()).isEqualTo("first");
+    }
+
+    @Test
+    void get_shouldNotKeepL1CopyPastItsL2Expiry() throws InterruptedException {
+        l2.put("1", new CachedValue("first", System.currentTimeMillis() + 50, 0));
+        assertThat(cache.get(1L).get()).isEqualTo("first");
+
+        // L2 expired and was repopulated; the L1 copy expired with it despite the 1 minute L1 TTL
+        Thread.sleep(100);
+        l2.put("1", "second");
+
+        assertThat(cache.get(1L).get()).isEqualTo("second");
+    }
+
+    @Test
+    void get_shouldHandEachCallerItsOwnCopy() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("first@example.com");
+        cache.put(1L, user);
+
+        // A caller changes the value it got without saving it
+        ((User) cache.get(1L).get()).setEmail("unsaved@example.com");
+        user.setEmail("also-unsaved@example.com");
+
+        assertThat(((User) cache.get(1L).get()).getEmail()).isEqualTo("first@example.com");
+        assertThat(cache.get(1L).get()).isNotSameAs(cache.get(1L).get());
+    }
+
+    @Test
+    void putAndEvict_shouldUpdateBothLevelsAndBroadcast() {
+        cache.put(1L, "value");
+
+        cache.evict(1L);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(l2.get("1")).isNull();
+        verify(redisTemplate, times(2)).convertAndSend(eq(CacheInvalidationBus.CHANNEL), endsWith("|posts|E|1"));
+    }
+
+    @Test
+    void onMessage_fromAnotherNode_shouldDropLocalCopy() {
+        l2.put("1", "first");
+        cache.get(1L);
+        l2.put("1", "second");
+
+        invalidationBus.onMessage(message("other-node|posts|E|1"), null);
+
+        assertThat(cache.get(1L).get()).isEqualTo("second");
+    }
+
+    @Test
+    void onMessage_clear_shouldDropAllLocalEntries() {
+        l2.put("1", "first");
+        l2.put("2", "first");
+        cache.get(1L);
+        cache.get(2L);
+        l2.clear();
+
+        invalidationBus.onMessage(message("other-node|posts|C|"), null);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test
+    void get_withValueLoader_shouldPopulateBothLevels() {
+        assertThat(cache.get(3L, () -> "loaded")).isEqualTo("loaded");
+
+        assertThat(((CachedValue) l2.get("3").get()).getValue()).isEqualTo("loaded");
+        assertThat(cache.get(3L, () -> "reloaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    void get_withValueLoader_shouldCoalesceConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Callable<String> slowLoader = () -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                releaseLoader.await(5, TimeUnit.SECONDS);
+                return "loaded";
+            };
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(1L, slowLoader)));
+            assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get(1L, slowLoader)));
+            }
+            Thread.sleep(100);
+            releaseLoader.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+            }
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_withValueLoader_shouldRefreshEntryCloseToExpiry() {
+        // Took a second to compute and expires now: early refresh is certain
+        l2.put("1", new CachedValue("old", System.currentTimeMillis(), 1000));
+
+        assertThat(cache.get(1L, () -> "new")).isEqualTo("new");
+        assertThat(((CachedValue) l2.get("1").get()).getValue()).isEqualTo("new");
+    }
+
+    @Test
+    void get_withValueLoader_shouldNotRefreshFreshEntry() {
+        l2.put("1", new CachedValue("current", System.currentTimeMillis() + 600_000, 1));
+
+        assertThat(cache.get(1L, () -> "new")).isEqualTo("current");
+    }
+
+    @Test
+    void get_withValueLoader_shouldShareLoaderFailure() {
+        assertThatThrownBy(() -> cache.get(1L, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(Cache.ValueRetrievalException.class)
+                .hasRootCauseMessage("boom");
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,9 @@
 package com.codehacks.image.controller;
 
+import com.codehacks.image.dto.ImageFile;
 import com.codehacks.image.dto.ImageResponse;
+import com.codehacks.image.dto.ImageStatsResponse;
+import com.codehacks.image.model.ImageStatus;
 import com.codehacks.image.model.ImageType;
 import com.codehacks.image.service.ImageService;
 import com.codehacks.user.model.User;
@@ -10,6 +13,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -24,11 +28,16 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +47,8 @@ import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.never;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -56,6 +67,9 @@ class ImageControllerTest {
     private MockMvc mockMvc;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @TempDir
+    Path tempDir;
+
     private User testUser;
     private ImageResponse testResponse;
     private MockMultipartFile testFile;
@@ -103,6 +117,12 @@ class ImageControllerTest {
         );
     }
 
+    private ImageFile imageFile(ImageType imageType) throws IOException {
+        Path path = Files.write(tempDir.resolve("image.jpg"), "featured image bytes".getBytes());
+        return new ImageFile(new FileSystemResource(path), "image.jpg", "image/jpeg", imageType, Files.size(path),
+                Files.getLastModifiedTime(path).toInstant());
+    }
+
     private MockHttpServletRequestBuilder addCurrentUser(MockHttpServletRequestBuilder request) {
         return request.requestAttr("currentUser", testUser);
     }
@@ -141,15 +161,55 @@ class ImageControllerTest {
 
     @Test
     void shouldGetImageFileSuccessfully() throws Exception {
-        // Given
-        when(imageService.getImageById(1L)).thenReturn(Optional.of(testResponse));
-        // No need to stub getImageFile(1L) since it should not be called
+        // Given - Profile pictures are not publicly accessible
+        when(imageService.getImageFile(1L, ImageType.FEATURED_IMAGE, null))
+                .thenThrow(new SecurityException("Access denied. Image 1 is not a FEATURED_IMAGE"));
 
         // When & Then
         mockMvc.perform(get("/api/v1/images/1/file"))
                 .andExpect(status().isForbidden());
 
-        verify(imageService, never()).getImageFile(1L); // Should not call getImageFile if forbidden
+        verify(imageService, never()).getImageById(any()); // The file lookup carries the image type
+        verify(imageService, never()).getImageFile(eq(1L), eq(ImageType.PROFILE_PICTURE), any());
+    }
+
+    @Test
+    void shouldStreamFeaturedImageFileWithValidators() throws Exception {
+        // Given
+        ImageFile file = imageFile(ImageType.FEATURED_IMAGE);
+        when(imageService.getImageFile(1L, ImageType.FEATURED_IMAGE, 150)).thenReturn(file);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/images/1/file").param("w", "150"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("featured image bytes".getBytes()))
+                .andExpect(header().string("ETag", file.etag()))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForMatchingETag() throws Exception {
+        // Given
+        ImageFile file = imageFile(ImageType.FEATURED_IMAGE);
+        when(imageService.getImageFile(1L, ImageType.FEATURED_IMAGE, null)).thenReturn(file);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/images/1/file").header("If-None-Match", file.etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void shouldServeRequestedByteRange() throws Exception {
+        // Given
+        when(imageService.getImageFile(1L, ImageType.FEATURED_IMAGE, null)).thenReturn(imageFile(ImageType.FEATURED_IMAGE));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/images/1/file").header("Range", "bytes=0-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 0-7/20"))
+                .andExpect(content().bytes("featured".getBytes()));
     }
 
     @Test
@@ -184,18 +244,22 @@ class ImageControllerTest {
     @Test
     void shouldGetImageStats() throws Exception {
         // Given
-        when(imageService.countImagesByUploaderId(1L)).thenReturn(5L);
-        when(imageService.getTotalStorageUsedByUploaderId(1L)).thenReturn(10240L);
+        when(imageService.getImageStats(1L)).thenReturn(ImageStatsResponse.builder()
+                .uploaderId(1L)
+                .totalImages(5L)
+                .totalStorageBytes(10240L)
+                .imagesByType(Map.of(ImageType.PROFILE_PICTURE, 1L, ImageType.FEATURED_IMAGE, 4L))
+                .build());
 
         // When & Then
         mockMvc.perform(addCurrentUser(get("/api/v1/images/user/1/stats")))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.uploaderId").value(1))
                 .andExpect(jsonPath("$.totalImages").value(5))
-                .andExpect(jsonPath("$.totalStorageBytes").value(10240));
+                .andExpect(jsonPath("$.totalStorageBytes").value(10240))
+                .andExpect(jsonPath("$.imagesByType.FEATURED_IMAGE").value(4));
 
-        verify(imageService).countImagesByUploaderId(1L);
-        verify(imageService).getTotalStorageUsedByUploaderId(1L);
+        verify(imageService).getImageStats(1L);
     }
 
     @Test
@@ -215,6 +279,7 @@ class ImageControllerTest {
     @Test
     void shouldUploadProfilePictureSuccessfully() throws Exception {
         // Given
+        testResponse.setStatus(ImageStatus.PENDING);
         when(imageService.uploadProfilePicture(any(), any(), any(), eq(1L))).thenReturn(testResponse);
 
         // When & Then
@@ -224,13 +289,39 @@ class ImageControllerTest {
                 .param("description", "A nice profile picture");
         
         mockMvc.perform(addCurrentUser(request))
-                .andExpect(status().isCreated())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/images/1/status"))
                 .andExpect(jsonPath("$.id").value(1))
-                .andExpect(jsonPath("$.imageType").value("PROFILE_PICTURE"));
+                .andExpect(jsonPath("$.imageType").value("PROFILE_PICTURE"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
 
         verify(imageService).uploadProfilePicture(any(), any(), any(), eq(1L));
     }
 
+    @Test
+    void shouldGetStatusOfOwnImage() throws Exception {
+        // Given
+        testResponse.setStatus(ImageStatus.READY);
+        when(imageService.getImageById(1L)).thenReturn(Optional.of(testResponse));
+
+        // When & Then
+        mockMvc.perform(addCurrentUser(get("/api/v1/images/1/status")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("READY"))
+                .andExpect(jsonPath("$.width").value(800));
+    }
+
+    @Test
+    void shouldRejectStatusOfAnotherUsersImage() throws Exception {
+        // Given
+        testResponse.setUploaderId(2L);
+        when(imageService.getImageById(1L)).thenReturn(Optional.of(testResponse));
+
+        // When & Then
+        mockMvc.perform(addCurrentUser(get("/api/v1/images/1/status")))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void shouldGetUserProfilePictureSuccessfully() throws Exception {
         // Given
@@ -0,0 +1,218 @@
+package com.codehacks.image.service;
+
+import com.codehacks.image.model.ImageBlob;
+import com.codehacks.image.model.ImageStatus;
+import com.codehacks.image.model.ImageVariant;
+import com.codehacks.image.repository.ImageBlobRepository;
+import com.codehacks.image.repository.ImageRepository;
+import com.codehacks.image.repository.UploaderImageUsageRepository;
+import com.codehacks.image.storage.LocalImageStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageGarbageCollectorTest {
+
+    @Mock
+    private ImageRepository imageRepository;
+
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+
+    @Mock
+    private UploaderImageUsageRepository uploaderImageUsageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private ImageGarbageCollector imageGarbageCollector;
+
+    @BeforeEach
+    void setUp() {
+        imageGarbageCollector = new ImageGarbageCollector(imageRepository, imageBlobRepository, uploaderImageUsageRepository,
+                new LocalImageStorage(tempDir, false), new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(imageGarbageCollector, "batchSize", 2);
+        ReflectionTestUtils.setField(imageGarbageCollector, "batchPauseMillis", 0L);
+        ReflectionTestUtils.setField(imageGarbageCollector, "orphanFileGraceMillis", Duration.ofDays(1).toMillis());
+    }
+
+    @Test
+    void deactivateSupersededProfilePictures_pagesThroughIdsInBatchesAndReleasesTheirUsage() throws InterruptedException {
+        // Given
+        when(imageRepository.findSupersededProfilePictureIds(0L, Limit.of(2))).thenReturn(List.of(3L, 7L));
+        when(imageRepository.findSupersededProfilePictureIds(7L, Limit.of(2))).thenReturn(List.of(9L));
+        when(imageRepository.findSupersededProfilePictureIds(9L, Limit.of(2))).thenReturn(List.of());
+        when(imageRepository.deactivate(List.of(3L, 7L))).thenReturn(2);
+        when(imageRepository.deactivate(List.of(9L))).thenReturn(1);
+
+        // When
+        int deactivated = imageGarbageCollector.deactivateSupersededProfilePictures();
+
+        // Then
+        assertThat(deactivated).isEqualTo(3);
+        verify(uploaderImageUsageRepository).subtractImages(List.of(3L, 7L));
+        verify(uploaderImageUsageRepository).subtractImages(List.of(9L));
+    }
+
+    @Test
+    void deactivateFailedImages_pagesThroughIdsInBatchesAndReleasesTheirUsage() throws InterruptedException {
+        // Given
+        when(imageRepository.findFailedImageIds(0L, Limit.of(2))).thenReturn(List.of(2L, 6L));
+        when(imageRepository.findFailedImageIds(6L, Limit.of(2))).thenReturn(List.of(8L));
+        when(imageRepository.findFailedImageIds(8L, Limit.of(2))).thenReturn(List.of());
+        when(imageRepository.deactivate(List.of(2L, 6L))).thenReturn(2);
+        when(imageRepository.deactivate(List.of(8L))).thenReturn(1);
+
+        // When
+        int deactivated = imageGarbageCollector.deactivateFailedImages();
+
+        // Then
+        assertThat(deactivated).isEqualTo(3);
+        verify(uploaderImageUsageRepository).subtractImages(List.of(2L, 6L));
+        verify(uploaderImageUsageRepository).subtractImages(List.of(8L));
+    }
+
+    @Test
+    void releaseInactiveImages_dropsReferencesOfEachBatch() throws InterruptedException {
+        // Given
+        when(imageRepository.findReleasableImageIds(0L, Limit.of(2))).thenReturn(List.of(4L, 5L));
+        when(imageRepository.findReleasableImageIds(5L, Limit.of(2))).thenReturn(List.of());
+        when(imageRepository.releaseBlobs(List.of(4L, 5L))).thenReturn(1);
+
+        // When
+        int released = imageGarbageCollector.releaseInactiveImages();
+
+        // Then
+        assertThat(released).isEqualTo(1);
+    }
+
+    @Test
+    void deleteUnreferencedBlobs_deletesRowThenFileAndVariantFiles() throws IOException, InterruptedException {
+        // Given
+        Path file = stored("9f/86/photo.jpg", Instant.now());
+        Path variant = stored("9f/86/photo_w150.jpg", Instant.now());
+        when(imageBlobRepository.findUnreferencedIds(0L, Limit.of(2))).thenReturn(List.of(1L));
+        when(imageBlobRepository.findUnreferencedIds(1L, Limit.of(2))).thenReturn(List.of());
+        when(imageBlobRepository.findWithVariantsById(1L)).thenReturn(Optional.of(blob("9f/86/photo.jpg", "9f/86/photo_w150.jpg")));
+        when(imageBlobRepository.deleteIfUnreferenced(1L)).thenReturn(1);
+
+        // When
+        int deleted = imageGarbageCollector.deleteUnreferencedBlobs();
+
+        // Then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(file).doesNotExist();
+        assertThat(variant).doesNotExist();
+    }
+
+    @Test
+    void deleteUnreferencedBlobs_keepsFilesOfBlobReferencedAgain() throws IOException, InterruptedException {
+        // Given
+        Path file = stored("9f/86/photo.jpg", Instant.now());
+        when(imageBlobRepository.findUnreferencedIds(0L, Limit.of(2))).thenReturn(List.of(1L));
+        when(imageBlobRepository.findUnreferencedIds(1L, Limit.of(2))).thenReturn(List.of());
+        when(imageBlobRepository.findWithVariantsById(1L)).thenReturn(Optional.of(blob("9f/86/photo.jpg")));
+        when(imageBlobRepository.deleteIfUnreferenced(1L)).thenReturn(0);
+
+        // When
+        int deleted = imageGarbageCollector.deleteUnreferencedBlobs();
+
+        // Then
+        assertThat(deleted).isZero();
+        assertThat(file).exists();
+    }
+
+    @Test
+    void deleteOrphanedFiles_deletesOnlyOldFilesNoBlobPointsAt() throws IOException, InterruptedException {
+        // Given
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        Path known = stored("9f/86/known.jpg", old);
+        Path orphan = stored("9f/86/orphan.jpg", old);
+        Path leftover = stored("9f/86/.store-123.tmp", old);
+        Path recent = stored("9f/86/recent.jpg", Instant.now());
+        when(imageBlobRepository.findKnownKeys(anyCollection())).thenAnswer(invocation -> {
+            List<String> keys = new ArrayList<>(invocation.getArgument(0));
+            keys.retainAll(List.of("9f/86/known.jpg"));
+            return keys;
+        });
+
+        // When
+        int deleted = imageGarbageCollector.deleteOrphanedFiles();
+
+        // Then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(known).exists();
+        assertThat(recent).exists();
+        assertThat(orphan).doesNotExist();
+        assertThat(leftover).doesNotExist();
+    }
+
+    @Test
+    void collect_runsEveryStepWithoutTouchingStorageWhenNothingIsCollectable() {
+        // Given
+        when(imageRepository.findSupersededProfilePictureIds(0L, Limit.of(2))).thenReturn(List.of());
+        when(imageRepository.findFailedImageIds(0L, Limit.of(2))).thenReturn(List.of());
+        when(imageRepository.findReleasableImageIds(0L, Limit.of(2))).thenReturn(List.of());
+        when(imageBlobRepository.findUnreferencedIds(0L, Limit.of(2))).thenReturn(List.of());
+
+        // When
+        imageGarbageCollector.collect();
+
+        // Then
+        verify(imageRepository, never()).deactivate(anyCollection());
+        verify(imageRepository, never()).releaseBlobs(anyCollection());
+        verify(imageBlobRepository, never()).deleteIfUnreferenced(anyLong());
+        verify(imageBlobRepository, never()).findKnownKeys(eq(List.of()));
+    }
+
+    private Path stored(String key, Instant lastModified) throws IOException {
+        Path path = tempDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(path, FileTime.from(lastModified));
+        return path;
+    }
+
+    private static ImageBlob blob(String filePath, String... variantPaths) {
+        List<ImageVariant> variants = new ArrayList<>();
+        for (String variantPath : variantPaths) {
+            variants.add(ImageVariant.builder().width(150).height(100).fileSize(3L).filePath(variantPath).build());
+        }
+        return ImageBlob.builder()
+                .id(1L)
+                .filePath(filePath)
+                .status(ImageStatus.READY)
+                .refCount(0)
+                .variants(variants)
+                .build();
+    }
+}
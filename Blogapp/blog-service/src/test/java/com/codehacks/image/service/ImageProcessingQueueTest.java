@@ -0,0 +1,232 @@
+package com.codehacks.image.service;
+
+import com.codehacks.image.dto.ImageDimensions;
+import com.codehacks.image.model.Image;
+import com.codehacks.image.model.ImageBlob;
+import com.codehacks.image.model.ImageStatus;
+import com.codehacks.image.model.ImageVariant;
+import com.codehacks.image.repository.ImageBlobRepository;
+import com.codehacks.image.repository.ImageRepository;
+import com.codehacks.image.repository.UploaderImageUsageRepository;
+import com.codehacks.image.storage.LocalImageStorage;
+import com.codehacks.user.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageProcessingQueueTest {
+
+    private static final String KEY = "9f/86/stored.jpg";
+
+    @Mock
+    private ImageRepository imageRepository;
+
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+
+    @Mock
+    private UploaderImageUsageRepository uploaderImageUsageRepository;
+
+    @Mock
+    private ImageProcessingService imageProcessingService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private ImageProcessingQueue imageProcessingQueue;
+    private ImageBlob blob;
+    private Path spooled;
+    private Path processed;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageProcessingQueue = new ImageProcessingQueue(imageRepository, imageBlobRepository, uploaderImageUsageRepository,
+                imageProcessingService, new LocalImageStorage(tempDir.resolve("store"), false),
+                new TransactionTemplate(transactionManager));
+
+        blob = ImageBlob.builder()
+                .id(1L)
+                .fileSize(5_000_000L)
+                .width(6000)
+                .height(4000)
+                .status(ImageStatus.PENDING)
+                .build();
+        spooled = Files.write(tempDir.resolve("upload.tmp"), new byte[]{1, 2, 3});
+        processed = tempDir.resolve("upload.tmp.jpg");
+    }
+
+    @Test
+    void process_marksBlobAndItsImagesReadyWithStoredDimensionsAndSize() throws IOException {
+        // Given
+        when(imageProcessingService.writeBounded(spooled, processed, "jpg", 1920, 1080)).thenAnswer(invocation -> {
+            Files.write(processed, new byte[4096]);
+            return new ImageDimensions(1620, 1080);
+        });
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+
+        // When
+        imageProcessingQueue.process(1L, spooled, KEY, "jpg", 1920, 1080);
+
+        // Then
+        assertThat(blob.getStatus()).isEqualTo(ImageStatus.READY);
+        assertThat(blob.getWidth()).isEqualTo(1620);
+        assertThat(blob.getHeight()).isEqualTo(1080);
+        assertThat(blob.getFileSize()).isEqualTo(4096L);
+        verify(uploaderImageUsageRepository).adjustProcessedBytes(1L, 4096L);
+        verify(imageRepository).markProcessed(1L, 1620, 1080, 4096L);
+        assertThat(tempDir.resolve("store/9f/86/stored.jpg")).hasSize(4096L);
+        assertThat(spooled).doesNotExist();
+        assertThat(processed).doesNotExist();
+    }
+
+    @Test
+    void process_pointsUploaderAtProfilePictureOnceReady() throws IOException {
+        // Given
+        User uploader = User.builder().id(2L).profilePictureUrl("ab/cd/previous.jpg").build();
+        Image picture = Image.builder().id(5L).uploader(uploader).filePath(KEY).fileName("me.jpg").build();
+        when(imageProcessingService.writeBounded(spooled, processed, "jpg", 1920, 1080)).thenAnswer(invocation -> {
+            Files.write(processed, new byte[4096]);
+            return new ImageDimensions(1620, 1080);
+        });
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+        when(imageRepository.findPendingProfilePicturesByBlobId(1L)).thenReturn(List.of(picture));
+
+        // When
+        imageProcessingQueue.process(1L, spooled, KEY, "jpg", 1920, 1080);
+
+        // Then
+        assertThat(uploader.getProfilePictureUrl()).isEqualTo(KEY);
+        assertThat(uploader.getProfilePictureFilename()).isEqualTo("me.jpg");
+    }
+
+    @Test
+    void process_keepsUploaderOnNewerReadyProfilePicture() throws IOException {
+        // Given
+        User uploader = User.builder().id(2L).profilePictureUrl("ab/cd/newer.jpg").build();
+        Image picture = Image.builder().id(5L).uploader(uploader).filePath(KEY).fileName("me.jpg").build();
+        when(imageProcessingService.writeBounded(spooled, processed, "jpg", 1920, 1080)).thenAnswer(invocation -> {
+            Files.write(processed, new byte[4096]);
+            return new ImageDimensions(1620, 1080);
+        });
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+        when(imageRepository.findPendingProfilePicturesByBlobId(1L)).thenReturn(List.of(picture));
+        when(imageRepository.existsNewerReadyProfilePicture(2L, 5L)).thenReturn(true);
+
+        // When
+        imageProcessingQueue.process(1L, spooled, KEY, "jpg", 1920, 1080);
+
+        // Then
+        assertThat(uploader.getProfilePictureUrl()).isEqualTo("ab/cd/newer.jpg");
+    }
+
+    @Test
+    void process_leavesUploaderAloneWhenProfilePictureWasDeleted() throws IOException {
+        // Given
+        User uploader = User.builder().id(2L).profilePictureUrl("ab/cd/previous.jpg").build();
+        Image picture = Image.builder().id(5L).uploader(uploader).filePath(KEY).fileName("me.jpg").isActive(false).build();
+        when(imageProcessingService.writeBounded(spooled, processed, "jpg", 1920, 1080)).thenAnswer(invocation -> {
+            Files.write(processed, new byte[4096]);
+            return new ImageDimensions(1620, 1080);
+        });
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+        when(imageRepository.findPendingProfilePicturesByBlobId(1L)).thenReturn(List.of(picture));
+
+        // When
+        imageProcessingQueue.process(1L, spooled, KEY, "jpg", 1920, 1080);
+
+        // Then
+        assertThat(uploader.getProfilePictureUrl()).isEqualTo("ab/cd/previous.jpg");
+        verify(imageRepository, never()).existsNewerReadyProfilePicture(any(), any());
+    }
+
+    @Test
+    void process_writesVariantsNarrowerThanStoredImage() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(imageProcessingQueue, "variantWidths", new int[]{480, 150, 2000});
+        when(imageProcessingService.writeBounded(spooled, processed, "jpg", 1920, 1080)).thenAnswer(invocation -> {
+            Files.write(processed, new byte[4096]);
+            return new ImageDimensions(1620, 1080);
+        });
+        when(imageProcessingService.writeBounded(eq(processed), any(Path.class), eq("jpg"), anyInt(), eq(Integer.MAX_VALUE)))
+                .thenAnswer(invocation -> {
+                    int width = invocation.getArgument(3);
+                    Files.write(invocation.getArgument(1, Path.class), new byte[width]);
+                    return new ImageDimensions(width, width * 2 / 3);
+                });
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+
+        // When
+        imageProcessingQueue.process(1L, spooled, KEY, "jpg", 1920, 1080);
+
+        // Then
+        assertThat(blob.getStatus()).isEqualTo(ImageStatus.READY);
+        assertThat(blob.getVariants()).extracting(ImageVariant::getWidth).containsExactly(150, 480);
+        assertThat(blob.getVariants()).extracting(ImageVariant::getFilePath)
+                .containsExactly("9f/86/stored_w150.jpg", "9f/86/stored_w480.jpg");
+        assertThat(blob.getVariants()).extracting(ImageVariant::getFileSize).containsExactly(150L, 480L);
+        assertThat(tempDir.resolve("store/9f/86/stored_w150.jpg")).hasSize(150L);
+        assertThat(tempDir.resolve("store/9f/86/stored_w480.jpg")).hasSize(480L);
+        assertThat(tempDir).isDirectoryNotContaining("glob:**_w*.jpg");
+    }
+
+    @Test
+    void process_marksBlobAndItsImagesFailedWhenItCannotBeDecoded() throws IOException {
+        // Given
+        when(imageProcessingService.writeBounded(spooled, processed, "jpg", 1920, 1080))
+                .thenThrow(new IOException("Premature end of JPEG file"));
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+
+        // When
+        imageProcessingQueue.process(1L, spooled, KEY, "jpg", 1920, 1080);
+
+        // Then
+        assertThat(blob.getStatus()).isEqualTo(ImageStatus.FAILED);
+        verify(imageRepository).markFailed(1L);
+        verify(imageRepository, never()).findPendingProfilePicturesByBlobId(any());
+        assertThat(spooled).doesNotExist();
+    }
+
+    @Test
+    void process_leavesBlobAlreadyFailedByStaleSweep() throws IOException {
+        // Given
+        blob.setStatus(ImageStatus.FAILED);
+        when(imageProcessingService.writeBounded(spooled, processed, "jpg", 1920, 1080)).thenAnswer(invocation -> {
+            Files.write(processed, new byte[4096]);
+            return new ImageDimensions(1620, 1080);
+        });
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+
+        // When
+        imageProcessingQueue.process(1L, spooled, KEY, "jpg", 1920, 1080);
+
+        // Then
+        assertThat(blob.getStatus()).isEqualTo(ImageStatus.FAILED);
+        assertThat(blob.getFileSize()).isEqualTo(5_000_000L);
+        verify(imageRepository, never()).markProcessed(anyLong(), anyInt(), anyInt(), anyLong());
+    }
+}
@@ -0,0 +1,138 @@
+package com.codehacks.image.service;
+
+import com.codehacks.image.dto.ImageDimensions;
+import com.codehacks.image.dto.SpooledUpload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageProcessingServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageProcessingService imageProcessingService;
+
+    @BeforeEach
+    void setUp() {
+        imageProcessingService = new ImageProcessingService();
+        ReflectionTestUtils.setField(imageProcessingService, "tmpPath", tempDir.resolve("spool").toString());
+    }
+
+    @Test
+    void spool_writesUploadToTempFileAndHashesIt() throws IOException, NoSuchAlgorithmException {
+        // Given
+        byte[] content = png(40, 30);
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", content);
+
+        // When
+        SpooledUpload upload = imageProcessingService.spool(file);
+
+        // Then
+        assertThat(upload.path()).startsWith(tempDir.resolve("spool"));
+        assertThat(Files.readAllBytes(upload.path())).isEqualTo(content);
+        assertThat(upload.sha256()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+    }
+
+    @Test
+    void readDimensions_readsHeader() throws IOException {
+        // Given
+        Path source = write("source.png", png(640, 480));
+
+        // When
+        ImageDimensions dimensions = imageProcessingService.readDimensions(source);
+
+        // Then
+        assertThat(dimensions).isEqualTo(new ImageDimensions(640, 480));
+    }
+
+    @Test
+    void readDimensions_rejectsNonImage() throws IOException {
+        // Given
+        Path source = write("notes.png", "not an image".getBytes());
+
+        // When & Then
+        assertThatThrownBy(() -> imageProcessingService.readDimensions(source))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void writeBounded_scalesLargeImageDownKeepingAspectRatio() throws IOException {
+        // Given
+        Path source = write("large.png", png(4000, 2000));
+        Path target = tempDir.resolve("large-bounded.png");
+
+        // When
+        ImageDimensions written = imageProcessingService.writeBounded(source, target, "png", 1920, 1080);
+
+        // Then
+        assertThat(written).isEqualTo(new ImageDimensions(1920, 960));
+        BufferedImage stored = ImageIO.read(target.toFile());
+        assertThat(stored.getWidth()).isEqualTo(1920);
+        assertThat(stored.getHeight()).isEqualTo(960);
+    }
+
+    @Test
+    void writeBounded_copiesImageThatAlreadyFits() throws IOException {
+        // Given
+        byte[] content = png(800, 600);
+        Path source = write("small.png", content);
+        Path target = tempDir.resolve("small-bounded.png");
+
+        // When
+        ImageDimensions written = imageProcessingService.writeBounded(source, target, "png", 1920, 1080);
+
+        // Then
+        assertThat(written).isEqualTo(new ImageDimensions(800, 600));
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+    }
+
+    @Test
+    void writeBounded_reencodesWhenFormatDiffers() throws IOException {
+        // Given
+        Path source = write("photo.png", png(800, 600));
+        Path target = tempDir.resolve("photo.jpg");
+
+        // When
+        imageProcessingService.writeBounded(source, target, "jpg", 1920, 1080);
+
+        // Then
+        try (ImageInputStream stored = ImageIO.createImageInputStream(target.toFile())) {
+            assertThat(ImageIO.getImageReaders(stored).next().getFormatName()).isEqualToIgnoringCase("jpeg");
+        }
+    }
+
+    @Test
+    void subsamplingStep_neverDecodesBelowTargetSize() {
+        assertThat(ImageProcessingService.subsamplingStep(new ImageDimensions(1000, 800), 1920, 1080)).isEqualTo(1);
+        assertThat(ImageProcessingService.subsamplingStep(new ImageDimensions(3000, 1000), 1920, 1080)).isEqualTo(1);
+        assertThat(ImageProcessingService.subsamplingStep(new ImageDimensions(6000, 4000), 1920, 1080)).isEqualTo(3);
+        assertThat(ImageProcessingService.subsamplingStep(new ImageDimensions(20000, 500), 1920, 1080)).isEqualTo(10);
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
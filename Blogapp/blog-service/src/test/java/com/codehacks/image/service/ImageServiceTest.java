@@ -1,16 +1,28 @@
 package com.codehacks.image.service;
 
+import com.codehacks.image.dto.ImageDimensions;
+import com.codehacks.image.dto.ImageFile;
 import com.codehacks.image.dto.ImageResponse;
+import com.codehacks.image.dto.ImageStatsResponse;
+import com.codehacks.image.dto.SpooledUpload;
 import com.codehacks.image.model.Image;
+import com.codehacks.image.model.ImageBlob;
+import com.codehacks.image.model.ImageStatus;
 import com.codehacks.image.model.ImageType;
+import com.codehacks.image.model.ImageVariant;
+import com.codehacks.image.model.UploaderImageUsage;
+import com.codehacks.image.repository.ImageBlobRepository;
 import com.codehacks.image.repository.ImageRepository;
+import com.codehacks.image.repository.UploaderImageUsageRepository;
+import com.codehacks.image.storage.LocalImageStorage;
 import com.codehacks.user.model.User;
 import com.codehacks.user.model.UserRole;
 import com.codehacks.user.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
@@ -19,25 +31,59 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ImageServiceTest {
 
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
     @Mock
     private ImageRepository imageRepository;
 
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+
+    @Mock
+    private UploaderImageUsageRepository uploaderImageUsageRepository;
+
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private ImageProcessingService imageProcessingService;
+
+    @Mock
+    private ImageProcessingQueue imageProcessingQueue;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private ImageServiceImpl imageService;
+    private LocalImageStorage imageStorage;
+
+    @TempDir
+    Path tempDir;
 
     private User testUser;
     private Image testImage;
@@ -45,11 +91,16 @@ class ImageServiceTest {
 
     @BeforeEach
     void setUp() {
+        imageStorage = spy(new LocalImageStorage(tempDir, false));
+        imageService = new ImageServiceImpl(imageRepository, imageBlobRepository, uploaderImageUsageRepository, userRepository, imageProcessingService,
+                imageProcessingQueue, imageStorage, new TransactionTemplate(transactionManager));
+
         // Configure the service with test properties
         ReflectionTestUtils.setField(imageService, "maxFileSize", 5242880L); // 5MB
         ReflectionTestUtils.setField(imageService, "maxWidth", 1920);
         ReflectionTestUtils.setField(imageService, "maxHeight", 1080);
-        ReflectionTestUtils.setField(imageService, "uploadPath", "uploads/images");
+        ReflectionTestUtils.setField(imageService, "quotaMaxImages", 10L);
+        ReflectionTestUtils.setField(imageService, "quotaMaxBytes", 1_000_000L);
 
         testUser = User.builder()
                 .id(1L)
@@ -145,6 +196,239 @@ class ImageServiceTest {
         assertThat(isValid).isFalse();
     }
 
+    @Test
+    void shouldSaveNewContentAsPendingAndQueueIt() throws IOException {
+        // Given
+        Path spooled = Files.write(tempDir.resolve("upload.tmp"), testFile.getBytes());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(imageProcessingService.spool(testFile)).thenReturn(new SpooledUpload(spooled, HASH));
+        when(imageProcessingService.readDimensions(spooled)).thenReturn(new ImageDimensions(6000, 4000));
+        ArgumentCaptor<String> storedKey = ArgumentCaptor.forClass(String.class);
+        when(imageBlobRepository.acquire(eq(HASH), eq("jpg"), storedKey.capture(), eq(testFile.getSize()), eq(6000), eq(4000)))
+                .thenReturn(1);
+        when(imageBlobRepository.findByContentHashAndFormat(HASH, "jpg"))
+                .thenAnswer(invocation -> Optional.of(blob(storedKey.getValue(), ImageStatus.PENDING, 6000, 4000)));
+        when(imageRepository.save(any(Image.class))).thenAnswer(invocation -> {
+            Image image = invocation.getArgument(0);
+            image.setId(7L);
+            return image;
+        });
+        when(uploaderImageUsageRepository.addWithinQuota(1L, 0, 1, 2048L, 10L, 1_000_000L)).thenReturn(1);
+
+        // When
+        ImageResponse response = imageService.uploadImage(testFile, ImageType.FEATURED_IMAGE, "alt", "desc", 1L);
+
+        // Then
+        assertThat(response.getId()).isEqualTo(7L);
+        assertThat(response.getStatus()).isEqualTo(ImageStatus.PENDING);
+        assertThat(response.getWidth()).isEqualTo(6000);
+        assertThat(response.getHeight()).isEqualTo(4000);
+        assertThat(response.getFilePath()).isEqualTo(storedKey.getValue())
+                .matches("9f/86/\\d{8}_\\d{6}_[0-9a-f]{8}\\.jpg");
+        verify(imageProcessingQueue).submit(3L, spooled, response.getFilePath(), "jpg", 1920, 1080);
+        verify(imageProcessingService, never()).writeBounded(any(), any(), any(), anyInt(), anyInt());
+        assertThat(spooled).exists(); // handed to the worker
+    }
+
+    @Test
+    void shouldReuseStoredContentWithoutProcessingIt() throws IOException {
+        // Given
+        Path spooled = Files.write(tempDir.resolve("upload.tmp"), testFile.getBytes());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(imageProcessingService.spool(testFile)).thenReturn(new SpooledUpload(spooled, HASH));
+        when(imageProcessingService.readDimensions(spooled)).thenReturn(new ImageDimensions(6000, 4000));
+        when(imageBlobRepository.findByContentHashAndFormat(HASH, "jpg"))
+                .thenReturn(Optional.of(blob("9f/86/20241201_120000_abc123.jpg", ImageStatus.READY, 1620, 1080)));
+        when(imageRepository.save(any(Image.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(uploaderImageUsageRepository.addWithinQuota(1L, 0, 1, 2048L, 10L, 1_000_000L)).thenReturn(1);
+
+        // When
+        ImageResponse response = imageService.uploadImage(testFile, ImageType.FEATURED_IMAGE, "alt", "desc", 1L);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(ImageStatus.READY);
+        assertThat(response.getFilePath()).isEqualTo("9f/86/20241201_120000_abc123.jpg");
+        assertThat(response.getStoredFileName()).isEqualTo("20241201_120000_abc123.jpg");
+        assertThat(response.getWidth()).isEqualTo(1620);
+        assertThat(response.getFileSize()).isEqualTo(2048L);
+        verifyNoInteractions(imageProcessingQueue);
+        assertThat(spooled).doesNotExist();
+    }
+
+    @Test
+    void shouldLeaveUserProfilePictureUntilNewPictureIsProcessed() throws IOException {
+        // Given
+        testUser.setProfilePictureUrl("ab/cd/previous.jpg");
+        Path spooled = Files.write(tempDir.resolve("upload.tmp"), testFile.getBytes());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(imageProcessingService.spool(testFile)).thenReturn(new SpooledUpload(spooled, HASH));
+        when(imageProcessingService.readDimensions(spooled)).thenReturn(new ImageDimensions(6000, 4000));
+        ArgumentCaptor<String> storedKey = ArgumentCaptor.forClass(String.class);
+        when(imageBlobRepository.acquire(eq(HASH), eq("jpg"), storedKey.capture(), eq(testFile.getSize()), eq(6000), eq(4000)))
+                .thenReturn(1);
+        when(imageBlobRepository.findByContentHashAndFormat(HASH, "jpg"))
+                .thenAnswer(invocation -> Optional.of(blob(storedKey.getValue(), ImageStatus.PENDING, 6000, 4000)));
+        when(imageRepository.save(any(Image.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(uploaderImageUsageRepository.addWithinQuota(1L, 1, 0, 2048L, 10L, 1_000_000L)).thenReturn(1);
+
+        // When
+        ImageResponse response = imageService.uploadProfilePicture(testFile, null, null, 1L);
+
+        // Then - ImageProcessingQueue points the user at it once it is READY
+        assertThat(response.getStatus()).isEqualTo(ImageStatus.PENDING);
+        assertThat(testUser.getProfilePictureUrl()).isEqualTo("ab/cd/previous.jpg");
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldPointUserAtProfilePictureWithStoredContentRightAway() throws IOException {
+        // Given
+        Path spooled = Files.write(tempDir.resolve("upload.tmp"), testFile.getBytes());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(imageProcessingService.spool(testFile)).thenReturn(new SpooledUpload(spooled, HASH));
+        when(imageProcessingService.readDimensions(spooled)).thenReturn(new ImageDimensions(6000, 4000));
+        when(imageBlobRepository.findByContentHashAndFormat(HASH, "jpg"))
+                .thenReturn(Optional.of(blob("9f/86/20241201_120000_abc123.jpg", ImageStatus.READY, 1620, 1080)));
+        when(imageRepository.save(any(Image.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(uploaderImageUsageRepository.addWithinQuota(1L, 1, 0, 2048L, 10L, 1_000_000L)).thenReturn(1);
+
+        // When
+        imageService.uploadProfilePicture(testFile, null, null, 1L);
+
+        // Then
+        assertThat(testUser.getProfilePictureUrl()).isEqualTo("9f/86/20241201_120000_abc123.jpg");
+        assertThat(testUser.getProfilePictureFilename()).isEqualTo(testFile.getOriginalFilename());
+        verify(userRepository).save(testUser);
+    }
+
+    @Test
+    void shouldRejectUploadBeyondQuotaBeforeSpoolingIt() {
+        // Given
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(uploaderImageUsageRepository.findById(1L)).thenReturn(Optional.of(usage(10, 4096L, 1, 9)));
+
+        // When & Then
+        assertThatThrownBy(() -> imageService.uploadImage(testFile, ImageType.FEATURED_IMAGE, null, null, 1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("quota");
+        verifyNoInteractions(imageProcessingService, imageBlobRepository, imageProcessingQueue);
+    }
+
+    @Test
+    void shouldRejectUploadWhenConcurrentUploadsTookTheRemainingQuota() throws IOException {
+        // Given
+        Path spooled = Files.write(tempDir.resolve("upload.tmp"), testFile.getBytes());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(imageProcessingService.spool(testFile)).thenReturn(new SpooledUpload(spooled, HASH));
+        when(imageProcessingService.readDimensions(spooled)).thenReturn(new ImageDimensions(6000, 4000));
+        when(imageBlobRepository.findByContentHashAndFormat(HASH, "jpg"))
+                .thenReturn(Optional.of(blob("9f/86/20241201_120000_abc123.jpg", ImageStatus.READY, 1620, 1080)));
+        when(imageRepository.save(any(Image.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(uploaderImageUsageRepository.addWithinQuota(1L, 1, 0, 2048L, 10L, 1_000_000L)).thenReturn(0);
+
+        // When & Then
+        assertThatThrownBy(() -> imageService.uploadProfilePicture(testFile, null, null, 1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("quota");
+        assertThat(spooled).doesNotExist();
+        verifyNoInteractions(imageProcessingQueue);
+    }
+
+    @Test
+    void shouldDeleteSpooledUploadWhenItIsNotAnImage() throws IOException {
+        // Given
+        Path spooled = Files.write(tempDir.resolve("upload.tmp"), testFile.getBytes());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(imageProcessingService.spool(testFile)).thenReturn(new SpooledUpload(spooled, HASH));
+        when(imageProcessingService.readDimensions(spooled)).thenThrow(new IllegalArgumentException("Unable to read image file"));
+
+        // When & Then
+        assertThatThrownBy(() -> imageService.uploadImage(testFile, ImageType.FEATURED_IMAGE, null, null, 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(spooled).doesNotExist();
+        verifyNoInteractions(imageBlobRepository, imageProcessingQueue);
+        verify(imageRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldNotServeFileOfPendingImage() {
+        // Given
+        testImage.setStatus(ImageStatus.PENDING);
+        when(imageRepository.findWithVariantsById(1L)).thenReturn(Optional.of(testImage));
+
+        // When & Then
+        assertThatThrownBy(() -> imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldRefuseFileOfOtherImageTypeBeforeLookingAtIt() throws IOException {
+        // Given - A pending profile picture requested as a featured image
+        testImage.setStatus(ImageStatus.PENDING);
+        when(imageRepository.findWithVariantsById(1L)).thenReturn(Optional.of(testImage));
+
+        // When & Then - Neither the status nor the stored file is disclosed
+        assertThatThrownBy(() -> imageService.getImageFile(1L, ImageType.FEATURED_IMAGE, null))
+                .isInstanceOf(SecurityException.class);
+        verify(imageStorage, never()).retrieve(any());
+    }
+
+    @Test
+    void shouldServeSmallestVariantAtLeastAsWideAsRequested() throws IOException {
+        // Given
+        Files.write(tempDir.resolve("full.jpg"), "full".getBytes());
+        Files.write(tempDir.resolve("full_w150.jpg"), "thumbnail".getBytes());
+        Files.write(tempDir.resolve("full_w480.jpg"), "card".getBytes());
+        testImage.setFilePath("full.jpg");
+        testImage.setBlob(blob("full.jpg", ImageStatus.READY, 800, 600));
+        testImage.getBlob().getVariants().add(variant(150, "full_w150.jpg"));
+        testImage.getBlob().getVariants().add(variant(480, "full_w480.jpg"));
+        when(imageRepository.findWithVariantsById(1L)).thenReturn(Optional.of(testImage));
+
+        // When & Then
+        assertThat(imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, 100).resource().getFilename()).isEqualTo("full_w150.jpg");
+        assertThat(imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, 150).resource().getFilename()).isEqualTo("full_w150.jpg");
+        assertThat(imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, 151).resource().getFilename()).isEqualTo("full_w480.jpg");
+        assertThat(imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, 800).resource().getFilename()).isEqualTo("full.jpg");
+        assertThat(imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, null).resource().getFilename()).isEqualTo("full.jpg");
+    }
+
+    @Test
+    void shouldDescribeImageFileFromItsAttributes() throws IOException {
+        // Given
+        Path stored = Files.write(tempDir.resolve("full.jpg"), "full image".getBytes());
+        testImage.setFilePath("full.jpg");
+        when(imageRepository.findWithVariantsById(1L)).thenReturn(Optional.of(testImage));
+
+        // When
+        ImageFile file = imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, null);
+
+        // Then
+        assertThat(file.contentLength()).isEqualTo(10L);
+        assertThat(file.lastModified()).isEqualTo(Files.getLastModifiedTime(stored).toInstant());
+        assertThat(file.contentType()).isEqualTo("image/jpeg");
+        assertThat(file.imageType()).isEqualTo(ImageType.PROFILE_PICTURE);
+        assertThat(file.etag()).startsWith("\"").endsWith("-a\"");
+    }
+
+    @Test
+    void shouldReportMissingImageFileAsNotFound() {
+        // Given
+        testImage.setFilePath("missing.jpg");
+        when(imageRepository.findWithVariantsById(1L)).thenReturn(Optional.of(testImage));
+
+        // When & Then
+        assertThatThrownBy(() -> imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, null))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void shouldRejectNonPositiveWidth() {
+        // When & Then
+        assertThatThrownBy(() -> imageService.getImageFile(1L, ImageType.PROFILE_PICTURE, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void shouldGetImageByIdSuccessfully() {
         // Given
@@ -216,7 +500,7 @@ class ImageServiceTest {
     @Test
     void shouldCountImagesByUploaderId() {
         // Given
-        when(imageRepository.countByUploaderIdAndIsActiveTrue(1L)).thenReturn(5L);
+        when(uploaderImageUsageRepository.findById(1L)).thenReturn(Optional.of(usage(5, 1024L, 1, 4)));
 
         // When
         long count = imageService.countImagesByUploaderId(1L);
@@ -240,7 +524,7 @@ class ImageServiceTest {
     @Test
     void shouldGetTotalStorageUsedByUploaderId() {
         // Given
-        when(imageRepository.getTotalStorageUsedByUploaderId(1L)).thenReturn(1024L);
+        when(uploaderImageUsageRepository.findById(1L)).thenReturn(Optional.of(usage(5, 1024L, 1, 4)));
 
         // When
         long totalStorage = imageService.getTotalStorageUsedByUploaderId(1L);
@@ -249,6 +533,34 @@ class ImageServiceTest {
         assertThat(totalStorage).isEqualTo(1024L);
     }
 
+    @Test
+    void shouldGetImageStatsFromUsageCounters() {
+        // Given
+        when(uploaderImageUsageRepository.findById(1L)).thenReturn(Optional.of(usage(5, 1024L, 1, 4)));
+
+        // When
+        ImageStatsResponse stats = imageService.getImageStats(1L);
+
+        // Then
+        assertThat(stats.getTotalImages()).isEqualTo(5L);
+        assertThat(stats.getTotalStorageBytes()).isEqualTo(1024L);
+        assertThat(stats.getImagesByType())
+                .containsEntry(ImageType.PROFILE_PICTURE, 1L)
+                .containsEntry(ImageType.FEATURED_IMAGE, 4L);
+        verifyNoInteractions(imageRepository);
+    }
+
+    @Test
+    void shouldReportZeroUsageForUploaderWithoutImages() {
+        // When
+        ImageStatsResponse stats = imageService.getImageStats(2L);
+
+        // Then
+        assertThat(stats.getTotalImages()).isZero();
+        assertThat(stats.getTotalStorageBytes()).isZero();
+        assertThat(stats.getImagesByType()).containsEntry(ImageType.PROFILE_PICTURE, 0L);
+    }
+
     @Test
     void shouldGetUserProfilePicture() {
         // Given
@@ -290,4 +602,37 @@ class ImageServiceTest {
         // Then
         assertThat(response).isEmpty();
     }
-} 
\ No newline at end of file
+
+    private static UploaderImageUsage usage(long images, long bytes, long profilePictures, long featuredImages) {
+        return UploaderImageUsage.builder()
+                .uploaderId(1L)
+                .imageCount(images)
+                .totalBytes(bytes)
+                .profilePictures(profilePictures)
+                .featuredImages(featuredImages)
+                .build();
+    }
+
+    private static ImageBlob blob(String filePath, ImageStatus status, int width, int height) {
+        return ImageBlob.builder()
+                .id(3L)
+                .contentHash(HASH)
+                .format("jpg")
+                .filePath(filePath)
+                .fileSize(2048L)
+                .width(width)
+                .height(height)
+                .status(status)
+                .refCount(1)
+                .build();
+    }
+
+    private static ImageVariant variant(int width, String key) {
+        return ImageVariant.builder()
+                .width(width)
+                .height(width * 3 / 4)
+                .fileSize(1L)
+                .filePath(key)
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.codehacks.image.storage;
+
+import com.codehacks.image.dto.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingImageStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+    private CachingImageStorage storage;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        root = tempDir.resolve("images");
+        storage = new CachingImageStorage(new LocalImageStorage(root, false), 100, 40);
+        meterRegistry = new SimpleMeterRegistry();
+        storage.bindTo(meterRegistry);
+    }
+
+    @Test
+    void retrieve_servesRepeatReadsFromMemory() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", source("photo.jpg", 30));
+        StoredFile first = storage.retrieve("9f/86/photo.jpg");
+        Files.delete(root.resolve("9f/86/photo.jpg"));
+
+        // When
+        StoredFile second = storage.retrieve("9f/86/photo.jpg");
+
+        // Then
+        assertThat(second.contentLength()).isEqualTo(30L);
+        assertThat(second.lastModified()).isEqualTo(first.lastModified());
+        assertThat(content(second)).isEqualTo(content(first)).hasSize(30);
+        assertThat(gauge("image.cache.hit.ratio")).isEqualTo(0.5);
+        assertThat(gauge("image.cache.bytes")).isEqualTo(30.0);
+    }
+
+    @Test
+    void retrieve_givesEachReaderItsOwnPosition() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", source("photo.jpg", 30));
+        storage.retrieve("9f/86/photo.jpg");
+        StoredFile cached = storage.retrieve("9f/86/photo.jpg");
+
+        // When
+        try (InputStream partial = cached.resource().getInputStream()) {
+            assertThat(partial.skip(10)).isEqualTo(10L);
+            assertThat(partial.read()).isEqualTo(10);
+        }
+
+        // Then
+        assertThat(content(cached)).hasSize(30);
+        assertThat(content(storage.retrieve("9f/86/photo.jpg"))[0]).isZero();
+    }
+
+    @Test
+    void retrieve_passesFilesAboveEntryLimitThrough() throws IOException {
+        // Given
+        storage.store("9f/86/large.jpg", source("large.jpg", 50));
+
+        // When
+        StoredFile stored = storage.retrieve("9f/86/large.jpg");
+
+        // Then
+        assertThat(content(stored)).hasSize(50);
+        assertThat(gauge("image.cache.bytes")).isZero();
+    }
+
+    @Test
+    void retrieve_keepsCachedBytesWithinBound() throws IOException {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            storage.store("9f/86/photo" + i + ".jpg", source("photo" + i + ".jpg", 30));
+        }
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            storage.retrieve("9f/86/photo" + i + ".jpg");
+        }
+
+        // Then
+        assertThat(gauge("image.cache.bytes")).isLessThanOrEqualTo(100.0);
+        assertThat(gauge("image.cache.max.bytes")).isEqualTo(100.0);
+    }
+
+    @Test
+    void delete_dropsCachedFile() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", source("photo.jpg", 30));
+        storage.retrieve("9f/86/photo.jpg");
+
+        // When
+        storage.delete("9f/86/photo.jpg");
+
+        // Then
+        assertThatThrownBy(() -> storage.retrieve("9f/86/photo.jpg"))
+                .isInstanceOf(NoSuchFileException.class);
+        assertThat(gauge("image.cache.bytes")).isZero();
+    }
+
+    @Test
+    void store_replacesCachedFile() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", source("photo.jpg", 30));
+        storage.retrieve("9f/86/photo.jpg");
+
+        // When
+        storage.store("9f/86/photo.jpg", source("photo-v2.jpg", 20));
+
+        // Then
+        assertThat(storage.retrieve("9f/86/photo.jpg").contentLength()).isEqualTo(20L);
+    }
+
+    private Path source(String name, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i;
+        }
+        return Files.write(tempDir.resolve(name), bytes);
+    }
+
+    private static byte[] content(StoredFile stored) throws IOException {
+        try (InputStream input = stored.resource().getInputStream()) {
+            return input.readAllBytes();
+        }
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
@@ -0,0 +1,145 @@
+package com.codehacks.image.storage;
+
+import com.codehacks.image.dto.StoredFile;
+import com.codehacks.image.dto.StoredKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalImageStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+    private LocalImageStorage storage;
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = tempDir.resolve("images");
+        storage = new LocalImageStorage(root, true);
+        source = Files.write(tempDir.resolve("processed.jpg"), "image bytes".getBytes());
+    }
+
+    @Test
+    void shardedKey_nestsFileUnderTwoHashPrefixDirectories() {
+        assertThat(ImageStorage.shardedKey("9f86d081884c7d65", "photo.jpg")).isEqualTo("9f/86/photo.jpg");
+    }
+
+    @Test
+    void store_writesFileUnderItsShardDirectoriesWithoutLeavingTempFiles() throws IOException {
+        // When
+        storage.store("9f/86/photo.jpg", source);
+
+        // Then
+        assertThat(root.resolve("9f/86/photo.jpg")).hasContent("image bytes");
+        try (var files = Files.list(root.resolve("9f/86"))) {
+            assertThat(files).containsExactly(root.resolve("9f/86/photo.jpg"));
+        }
+        assertThat(source).exists();
+    }
+
+    @Test
+    void store_replacesFileStoredUnderSameKey() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", Files.write(tempDir.resolve("old.jpg"), "old".getBytes()));
+
+        // When
+        storage.store("9f/86/photo.jpg", source);
+
+        // Then
+        assertThat(root.resolve("9f/86/photo.jpg")).hasContent("image bytes");
+    }
+
+    @Test
+    void retrieve_describesStoredFile() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", source);
+
+        // When
+        StoredFile stored = storage.retrieve("9f/86/photo.jpg");
+
+        // Then
+        assertThat(stored.contentLength()).isEqualTo(11L);
+        assertThat(stored.lastModified()).isEqualTo(Files.getLastModifiedTime(root.resolve("9f/86/photo.jpg")).toInstant());
+        try (InputStream content = stored.resource().getInputStream()) {
+            assertThat(content.readAllBytes()).isEqualTo("image bytes".getBytes());
+        }
+    }
+
+    @Test
+    void retrieve_resolvesKeysOfFilesStoredFlatInRoot() throws IOException {
+        // Given
+        Files.createDirectories(root);
+        Files.write(root.resolve("20241201_120000_abc123.jpg"), "legacy".getBytes());
+
+        // When & Then
+        assertThat(storage.retrieve("20241201_120000_abc123.jpg").contentLength()).isEqualTo(6L);
+    }
+
+    @Test
+    void retrieve_throwsNoSuchFileForMissingKey() {
+        assertThatThrownBy(() -> storage.retrieve("9f/86/missing.jpg"))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void delete_removesStoredFile() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", source);
+
+        // When
+        storage.delete("9f/86/photo.jpg");
+        storage.delete("9f/86/photo.jpg");
+
+        // Then
+        assertThat(root.resolve("9f/86/photo.jpg")).doesNotExist();
+    }
+
+    @Test
+    void resolve_rejectsKeysOutsideRoot() {
+        assertThatThrownBy(() -> storage.store("../escaped.jpg", source))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.retrieve("/etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(tempDir.resolve("escaped.jpg")).doesNotExist();
+    }
+
+    @Test
+    void list_walksEveryStoredFileAsSlashSeparatedKey() throws IOException {
+        // Given
+        storage.store("9f/86/photo.jpg", source);
+        storage.store("9f/86/photo_w150.jpg", source);
+        Files.write(root.resolve("legacy.jpg"), "flat".getBytes());
+
+        // When
+        List<StoredKey> keys;
+        try (Stream<StoredKey> listed = storage.list()) {
+            keys = listed.toList();
+        }
+
+        // Then
+        assertThat(keys).extracting(StoredKey::key)
+                .containsExactlyInAnyOrder("9f/86/photo.jpg", "9f/86/photo_w150.jpg", "legacy.jpg");
+        assertThat(keys).extracting(StoredKey::lastModified).doesNotContainNull();
+    }
+
+    @Test
+    void list_isEmptyBeforeAnythingIsStored() throws IOException {
+        try (Stream<StoredKey> listed = storage.list()) {
+            assertThat(listed).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.codehacks.image.storage;
+
+import com.codehacks.image.dto.StoredFile;
+import com.codehacks.image.dto.StoredKey;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the S3 storage against MinIO as the S3-compatible endpoint.
+ */
+@Testcontainers
+class S3ImageStorageTest {
+
+    private static final String BUCKET = "blog-images";
+
+    @Container
+    static MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2024-12-18T13-15-44Z");
+
+    private static S3ImageStorage storage;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void createBucket() {
+        S3Client s3Client = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .forcePathStyle(true)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .build();
+        s3Client.createBucket(request -> request.bucket(BUCKET));
+        storage = new S3ImageStorage(s3Client, BUCKET);
+    }
+
+    @AfterAll
+    static void closeClient() {
+        storage.close();
+    }
+
+    @Test
+    void storedFileCanBeRetrievedAndStreamed() throws IOException {
+        // Given
+        Path source = Files.write(tempDir.resolve("processed.jpg"), "image bytes".getBytes());
+        Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        // When
+        storage.store("9f/86/photo.jpg", source);
+        StoredFile stored = storage.retrieve("9f/86/photo.jpg");
+
+        // Then
+        assertThat(stored.contentLength()).isEqualTo(11L);
+        assertThat(stored.lastModified()).isAfterOrEqualTo(before);
+        assertThat(stored.resource().getFilename()).isEqualTo("photo.jpg");
+        try (InputStream content = stored.resource().getInputStream()) {
+            assertThat(content.readAllBytes()).isEqualTo("image bytes".getBytes());
+        }
+    }
+
+    @Test
+    void retrieveThrowsNoSuchFileForMissingKey() {
+        assertThatThrownBy(() -> storage.retrieve("9f/86/missing.jpg"))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void deletedFileIsGone() throws IOException {
+        // Given
+        storage.store("9f/86/deleted.jpg", Files.write(tempDir.resolve("deleted.jpg"), "bytes".getBytes()));
+
+        // When
+        storage.delete("9f/86/deleted.jpg");
+
+        // Then
+        assertThatThrownBy(() -> storage.retrieve("9f/86/deleted.jpg"))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void listedKeysIncludeStoredFiles() throws IOException {
+        // Given
+        storage.store("aa/bb/listed.jpg", Files.write(tempDir.resolve("listed.jpg"), "bytes".getBytes()));
+
+        // When
+        List<String> keys;
+        try (Stream<StoredKey> listed = storage.list()) {
+            keys = listed.map(StoredKey::key).toList();
+        }
+
+        // Then
+        assertThat(keys).contains("aa/bb/listed.jpg");
+    }
+}
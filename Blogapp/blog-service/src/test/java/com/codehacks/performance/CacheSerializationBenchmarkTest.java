@@ -0,0 +1,109 @@
+package com.codehacks.performance;
+
+import com.codehacks.config.CacheValueSerializer;
+import com.codehacks.config.CachedValue;
+import com.codehacks.post.dto.PostFeedPage;
+import com.codehacks.post.dto.PostSummaryResponse;
+import com.codehacks.post.model.Post;
+import com.codehacks.post.model.PostStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the Redis cache value codecs on representative entries: a long post and a feed page,
+ * both wrapped in the two-level cache envelope as they are stored in Redis. Logs encoded size and
+ * average encode/decode time per codec; only the size ordering is asserted, timings vary by machine.
+ * Excluded from the default build, run it with {@code mvn test -Pbenchmark}.
+ * JSON here is the previous format with a JavaTimeModule added: the bare GenericJackson2JsonRedisSerializer
+ * cannot write the LocalDateTime fields of these entries at all.
+ */
+@Tag("benchmark")
+class CacheSerializationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSerializationBenchmarkTest.class);
+
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+
+    @Test
+    void compareCodecs_onPostAndFeedPage() {
+        CachedValue post = new CachedValue(post(), System.currentTimeMillis(), 5);
+        CachedValue feed = new CachedValue(feedPage(), System.currentTimeMillis(), 5);
+
+        RedisSerializer<Object> json = new CacheValueSerializer(CacheValueSerializer.Format.JSON, 0);
+        RedisSerializer<Object> smile = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 0);
+        RedisSerializer<Object> smileDeflate = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 2048);
+
+        int jsonPost = run("JSON", "post", json, post);
+        int smilePost = run("SMILE", "post", smile, post);
+        int deflatedPost = run("SMILE+deflate", "post", smileDeflate, post);
+        int jsonFeed = run("JSON", "feed", json, feed);
+        int smileFeed = run("SMILE", "feed", smile, feed);
+
+        assertThat(smilePost).isLessThan(jsonPost);
+        assertThat(deflatedPost).isLessThan(smilePost);
+        assertThat(smileFeed).isLessThan(jsonFeed);
+    }
+
+    private static int run(String codec, String entry, RedisSerializer<Object> serializer, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            byte[] encoded = serializer.serialize(value);
+            long encodedAt = System.nanoTime();
+            serializer.deserialize(encoded);
+            decodeNanos += System.nanoTime() - encodedAt;
+            encodeNanos += encodedAt - start;
+        }
+        log.info("{} {}: {} bytes, encode {} us, decode {} us", codec, entry, bytes.length,
+                String.format("%.2f", encodeNanos / 1000.0 / MEASURED_ITERATIONS),
+                String.format("%.2f", decodeNanos / 1000.0 / MEASURED_ITERATIONS));
+        return bytes.length;
+    }
+
+    private static Post post() {
+        Post post = new Post();
+        post.setId(42L);
+        post.setTitle("Designing a cache hierarchy for a blogging platform");
+        post.setContent("Caching is one of those topics where the details matter more than the idea. ".repeat(80));
+        post.setAuthorId(7L);
+        post.setStatus(PostStatus.PUBLISHED);
+        post.setClapsCount(318);
+        post.setCreatedAt(LocalDateTime.of(2025, 3, 1, 12, 30));
+        post.setUpdatedAt(LocalDateTime.of(2025, 3, 2, 9, 15));
+        return post;
+    }
+
+    private static PostFeedPage feedPage() {
+        List<PostSummaryResponse> posts = new ArrayList<>();
+        LongStream.rangeClosed(1, 20).forEach(id -> posts.add(PostSummaryResponse.builder()
+                .id(id)
+                .title("Post number " + id + " about caching")
+                .excerpt("Caching is one of those topics where the details matter more than the idea. ".repeat(3))
+                .authorId(7L)
+                .authorName("Jane Doe")
+                .status(PostStatus.PUBLISHED)
+                .clapsCount((int) id * 3)
+                .createdAt(LocalDateTime.of(2025, 3, 1, 12, 30).minusHours(id))
+                .updatedAt(LocalDateTime.of(2025, 3, 1, 12, 30))
+                .build()));
+        return new PostFeedPage(posts, "MjAyNS0wMy0wMVQxMjozMHwyMA", true);
+    }
+}
@@ -0,0 +1,318 @@
+package com.codehacks.performance;
+
+import com.codehacks.comment.model.CommentStatus;
+import com.codehacks.comment.repository.CommentRepository;
+import com.codehacks.comment.repository.PostCommentCounterRepository;
+import com.codehacks.image.model.ImageType;
+import com.codehacks.image.repository.ImageBlobRepository;
+import com.codehacks.image.repository.ImageRepository;
+import com.codehacks.image.repository.UploaderImageUsageRepository;
+import com.codehacks.subscription.model.NotificationStatus;
+import com.codehacks.subscription.model.NotificationType;
+import com.codehacks.subscription.model.SubscriptionStatus;
+import com.codehacks.subscription.repository.NotificationLogRepository;
+import com.codehacks.subscription.repository.SubscriptionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static java.util.Map.entry;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plan regression suite: runs every query declared on the repositories below against the
+ * migrated schema and EXPLAINs the SQL Hibernate actually sent. With sequential scans disabled the
+ * planner still falls back to one when no index can serve a query, so a sequential scan (or a
+ * scan of a whole index) in a plan means a query is missing its index. Adding a query to one of these repositories without adding
+ * it here fails the test as well.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.codehacks.performance.QueryPlanTest$CapturedStatements"
+})
+class QueryPlanTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16.8-alpine")
+            .withDatabaseName("blog_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private static final LocalDateTime SINCE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    // Count every row by design, so no index can narrow them: the (cached) comment statistics and
+    // the total of the page of all active images
+    private static final Set<String> FULL_SCANS_BY_DESIGN = Set.of("aggregateStatistics", "findByIsActiveTrue");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostCommentCounterRepository postCommentCounterRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private UploaderImageUsageRepository uploaderImageUsageRepository;
+
+    @Autowired
+    private NotificationLogRepository notificationLogRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void commentQueries_shouldBeServedByIndexes() {
+        assertIndexedPlans(CommentRepository.class, Map.ofEntries(
+                entry("findApprovedCommentsByPostId", () -> commentRepository.findApprovedCommentsByPostId(1L)),
+                entry("findApprovedThreadByPostId", () -> commentRepository.findApprovedThreadByPostId(1L)),
+                entry("findApprovedReplyIdsBelow", () -> commentRepository.findApprovedReplyIdsBelow(List.of(1L, 2L))),
+                entry("findWithAuthorByIdIn", () -> commentRepository.findWithAuthorByIdIn(List.of(1L, 2L))),
+                entry("findAllCommentsByPostId", () -> commentRepository.findAllCommentsByPostId(1L)),
+                entry("findApprovedRepliesByParentId", () -> commentRepository.findApprovedRepliesByParentId(1L)),
+                entry("findCommentsByUserId", () -> commentRepository.findCommentsByUserId(1L)),
+                entry("findByStatusOrderByCreatedAtDesc",
+                        () -> commentRepository.findByStatusOrderByCreatedAtDesc(CommentStatus.SPAM)),
+                entry("findPendingCommentsForModeration", () -> commentRepository.findPendingCommentsForModeration()),
+                entry("aggregateStatistics",
+                        () -> commentRepository.aggregateStatistics(SINCE, SINCE.minusDays(7), SINCE.minusDays(30))),
+                entry("countByStatus", () -> commentRepository.countByStatus(CommentStatus.APPROVED)),
+                entry("countByPostIdAndStatus", () -> commentRepository.countByPostIdAndStatus(1L, CommentStatus.APPROVED)),
+                entry("findCommentsCreatedAfter", () -> commentRepository.findCommentsCreatedAfter(SINCE)),
+                entry("findApprovedCommentsByPostIdWithPagination", () -> commentRepository
+                        .findApprovedCommentsByPostIdWithPagination(1L, PageRequest.of(1, 20, Sort.by("createdAt").descending()))),
+                entry("existsByPostIdAndUserId", () -> commentRepository.existsByPostIdAndUserId(1L, 1L)),
+                entry("findMostRecentCommentByUserId", () -> commentRepository.findMostRecentCommentByUserId(1L)),
+                entry("findCommentsByKeyword", () -> commentRepository.findCommentsByKeyword("spring"))));
+    }
+
+    @Test
+    void commentCounterQueries_shouldBeServedByIndexes() {
+        assertIndexedPlans(PostCommentCounterRepository.class, Map.ofEntries(
+                entry("findByPostIdIn", () -> postCommentCounterRepository.findByPostIdIn(List.of(1L, 2L))),
+                entry("adjust", () -> postCommentCounterRepository.adjust(1L, 1, -1, 0, 0))));
+    }
+
+    @Test
+    void imageQueries_shouldBeServedByIndexes() {
+        assertIndexedPlans(ImageRepository.class, Map.ofEntries(
+                entry("findByImageTypeAndIsActiveTrueOrderByCreatedAtDesc",
+                        () -> imageRepository.findByImageTypeAndIsActiveTrueOrderByCreatedAtDesc(ImageType.FEATURED_IMAGE)),
+                entry("findByIsActiveTrue",
+                        () -> imageRepository.findByIsActiveTrue(PageRequest.of(1, 20, Sort.by("createdAt").descending()))),
+                entry("countByUploaderIdAndIsActiveTrue", () -> imageRepository.countByUploaderIdAndIsActiveTrue(1L)),
+                entry("countByImageTypeAndIsActiveTrue",
+                        () -> imageRepository.countByImageTypeAndIsActiveTrue(ImageType.PROFILE_PICTURE)),
+                entry("findWithVariantsById", () -> imageRepository.findWithVariantsById(1L)),
+                entry("getTotalStorageUsedByUploaderId", () -> imageRepository.getTotalStorageUsedByUploaderId(1L)),
+                entry("findByFileNameAndUploaderIdAndIsActiveTrue",
+                        () -> imageRepository.findByFileNameAndUploaderIdAndIsActiveTrue("photo.jpg", 1L)),
+                entry("findImagesCreatedAfter", () -> imageRepository.findImagesCreatedAfter(SINCE)),
+                entry("findByContentTypeAndIsActiveTrueOrderByCreatedAtDesc",
+                        () -> imageRepository.findByContentTypeAndIsActiveTrueOrderByCreatedAtDesc("image/png")),
+                entry("findLargeImages", () -> imageRepository.findLargeImages(5_000_000L)),
+                entry("failStalePending", () -> imageRepository.failStalePending(SINCE)),
+                entry("markProcessed", () -> imageRepository.markProcessed(1L, 1620, 1080, 4096L)),
+                entry("markFailed", () -> imageRepository.markFailed(1L)),
+                entry("findPendingProfilePicturesByBlobId", () -> imageRepository.findPendingProfilePicturesByBlobId(1L)),
+                entry("existsNewerReadyProfilePicture", () -> imageRepository.existsNewerReadyProfilePicture(1L, 1L)),
+                entry("findSupersededProfilePictureIds",
+                        () -> imageRepository.findSupersededProfilePictureIds(0L, Limit.of(100))),
+                entry("findFailedImageIds", () -> imageRepository.findFailedImageIds(0L, Limit.of(100))),
+                entry("deactivate", () -> imageRepository.deactivate(List.of(1L, 2L))),
+                entry("findReleasableImageIds", () -> imageRepository.findReleasableImageIds(0L, Limit.of(100))),
+                entry("releaseBlobs", () -> imageRepository.releaseBlobs(List.of(1L, 2L)))));
+    }
+
+    @Test
+    void imageBlobQueries_shouldBeServedByIndexes() {
+        assertIndexedPlans(ImageBlobRepository.class, Map.ofEntries(
+                entry("findByContentHashAndFormat", () -> imageBlobRepository.findByContentHashAndFormat("hash", "jpg")),
+                entry("acquire", () -> imageBlobRepository.acquire("hash", "jpg", "/uploads/images/a.jpg", 1L, 1, 1)),
+                entry("failStalePending", () -> imageBlobRepository.failStalePending(SINCE)),
+                entry("findUnreferencedIds", () -> imageBlobRepository.findUnreferencedIds(0L, Limit.of(100))),
+                entry("findWithVariantsById", () -> imageBlobRepository.findWithVariantsById(1L)),
+                entry("deleteIfUnreferenced", () -> imageBlobRepository.deleteIfUnreferenced(1L)),
+                entry("findKnownKeys", () -> imageBlobRepository.findKnownKeys(List.of("9f/86/a.jpg", "9f/86/a_w150.jpg")))));
+    }
+
+    @Test
+    void uploaderImageUsageQueries_shouldBeServedByIndexes() {
+        assertIndexedPlans(UploaderImageUsageRepository.class, Map.ofEntries(
+                entry("addWithinQuota", () -> uploaderImageUsageRepository.addWithinQuota(1L, 0, 1, 4096L, 1000L, 524288000L)),
+                entry("subtractImages", () -> uploaderImageUsageRepository.subtractImages(List.of(1L, 2L))),
+                entry("adjustProcessedBytes", () -> uploaderImageUsageRepository.adjustProcessedBytes(1L, 4096L))));
+    }
+
+    @Test
+    void notificationLogQueries_shouldBeServedByIndexes() {
+        assertIndexedPlans(NotificationLogRepository.class, Map.ofEntries(
+                entry("findBySubscriptionIdOrderByCreatedAtDesc",
+                        () -> notificationLogRepository.findBySubscriptionIdOrderByCreatedAtDesc(1L)),
+                entry("findByStatus", () -> notificationLogRepository.findByStatus(NotificationStatus.FAILED)),
+                entry("findByEmailOrderByCreatedAtDesc",
+                        () -> notificationLogRepository.findByEmailOrderByCreatedAtDesc("reader@example.com")),
+                entry("findByCreatedAtAfter", () -> notificationLogRepository.findByCreatedAtAfter(SINCE)),
+                entry("findByStatusIn", () -> notificationLogRepository.findByStatusIn(
+                        List.of(NotificationStatus.FAILED, NotificationStatus.BOUNCED))),
+                entry("countByStatus", () -> notificationLogRepository.countByStatus(NotificationStatus.SENT)),
+                entry("findByPostIdOrderByCreatedAtDesc", () -> notificationLogRepository.findByPostIdOrderByCreatedAtDesc(1L)),
+                entry("findNotificationsForRetry", () -> notificationLogRepository.findNotificationsForRetry(SINCE))));
+    }
+
+    @Test
+    void subscriptionQueries_shouldBeServedByIndexes() {
+        assertIndexedPlans(SubscriptionRepository.class, Map.ofEntries(
+                entry("findByEmail", () -> subscriptionRepository.findByEmail("reader@example.com")),
+                entry("findByToken", () -> subscriptionRepository.findByToken("token")),
+                entry("findByStatusAndNotificationTypeAndActiveTrue", () -> subscriptionRepository
+                        .findByStatusAndNotificationTypeAndActiveTrue(SubscriptionStatus.ACTIVE, NotificationType.DAILY)),
+                entry("findActiveSubscriptionsForNotification", () -> subscriptionRepository
+                        .findActiveSubscriptionsForNotification(SubscriptionStatus.ACTIVE, NotificationType.DAILY, SINCE)),
+                entry("existsByEmail", () -> subscriptionRepository.existsByEmail("reader@example.com")),
+                entry("findByStatusAndActiveTrue", () -> subscriptionRepository.findByStatusAndActiveTrue(SubscriptionStatus.ACTIVE)),
+                entry("countByStatusAndActiveTrue",
+                        () -> subscriptionRepository.countByStatusAndActiveTrue(SubscriptionStatus.ACTIVE))));
+    }
+
+    private void assertIndexedPlans(Class<?> repository, Map<String, Runnable> queries) {
+        Set<String> declared = Arrays.stream(repository.getDeclaredMethods())
+                .filter(method -> !method.isSynthetic())
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+        assertThat(queries.keySet()).as("queries of %s covered by this test", repository.getSimpleName())
+                .containsExactlyInAnyOrderElementsOf(declared);
+
+        List<String> unindexed = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            CapturedStatements.SQL.clear();
+            query.run();
+            assertThat(CapturedStatements.SQL).as("SQL sent by %s", name).isNotEmpty();
+            if (FULL_SCANS_BY_DESIGN.contains(name)) {
+                return;
+            }
+            for (String sql : List.copyOf(CapturedStatements.SQL)) {
+                JsonNode plan = explain(sql);
+                List<String> scans = new ArrayList<>();
+                collectUnindexedScans(plan.path(0).path("Plan"), false, scans);
+                if (!scans.isEmpty()) {
+                    unindexed.add(name + ": " + String.join(", ", scans) + "\n  " + sql);
+                }
+            }
+        });
+        assertThat(unindexed).as("queries that scan a whole table or index").isEmpty();
+    }
+
+    /**
+     * A sequential scan, or an index scan without an index condition (i.e. walking a whole partial
+     * index), reads every row; the latter is only fine under a Limit, as an ordered top-N read.
+     */
+    private static void collectUnindexedScans(JsonNode node, boolean limited, List<String> scans) {
+        String type = node.path("Node Type").asText();
+        String relation = node.path("Index Name").asText(node.path("Relation Name").asText());
+        if (type.equals("Seq Scan")) {
+            scans.add(type + " on " + relation);
+        } else if (type.endsWith("Index Scan") && !node.has("Index Cond") && !limited) {
+            scans.add(type + " without condition on " + relation);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectUnindexedScans(child, limited || type.equals("Limit"), scans);
+        }
+    }
+
+    /**
+     * Plans the statement for arbitrary parameter values, in the test transaction: prepared with its
+     * JDBC '?' placeholders numbered, and explained with the generic (value-independent) plan forced
+     */
+    private JsonNode explain(String sql) {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        // SSD page costs: with the default of 4 the empty tables make an index condition worth nothing,
+        // and a range query ties with a walk of any other partial index sharing its predicate
+        jdbcTemplate.execute("SET LOCAL random_page_cost = 1.1");
+        StringBuilder prepared = new StringBuilder(sql.length() + 16);
+        int parameters = 0;
+        boolean inLiteral = false;
+        for (char c : sql.toCharArray()) {
+            inLiteral ^= c == '\'';
+            if (c == '?' && !inLiteral) {
+                prepared.append('$').append(++parameters);
+            } else {
+                prepared.append(c);
+            }
+        }
+        jdbcTemplate.execute("PREPARE plan_check AS " + prepared);
+        try {
+            String arguments = parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+            return OBJECT_MAPPER.readTree(jdbcTemplate.queryForObject(
+                    "EXPLAIN (FORMAT JSON) EXECUTE plan_check" + arguments, String.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable plan for " + sql, e);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_check");
+        }
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares, unchanged
+     */
+    public static class CapturedStatements implements StatementInspector {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
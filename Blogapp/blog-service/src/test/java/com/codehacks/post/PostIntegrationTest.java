@@ -1,5 +1,6 @@
 package com.codehacks.post;
 
+import com.codehacks.post.dto.PostSummaryResponse;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.model.PostStatus;
 import com.codehacks.post.service.PostService;
@@ -154,7 +155,7 @@ class PostIntegrationTest {
         Post draftPost = postService.createPost(createTestPost("Draft Post", "Draft content", testUser.getId(), PostStatus.DRAFT));
 
         // When
-        List<Post> publishedPosts = postService.getAllPublishedPosts();
+        List<PostSummaryResponse> publishedPosts = postService.getAllPublishedPosts();
 
         // Then
         assertThat(publishedPosts).hasSizeGreaterThanOrEqualTo(2);
@@ -168,12 +169,14 @@ class PostIntegrationTest {
         Post javaPost = postService.createPost(createTestPost("Java Programming", "Learn Java", testUser.getId(), PostStatus.PUBLISHED));
         Post pythonPost = postService.createPost(createTestPost("Python Basics", "Learn Python", testUser.getId(), PostStatus.PUBLISHED));
         Post jsPost = postService.createPost(createTestPost("JavaScript Guide", "Learn JavaScript", testUser.getId(), PostStatus.PUBLISHED));
+        postService.createPost(createTestPost("Learning Drafts", "Learn to write drafts", testUser.getId(), PostStatus.DRAFT));
 
         // When
-        List<Post> javaResults = postService.searchPosts("Java Programming");
-        List<Post> pythonResults = postService.searchPosts("Python");
-        List<Post> javascriptResults = postService.searchPosts("JavaScript");
-        List<Post> learnResults = postService.searchPosts("Learn");
+        List<PostSummaryResponse> javaResults = postService.searchPosts("Java Programming", 0, 20);
+        List<PostSummaryResponse> pythonResults = postService.searchPosts("Python", 0, 20);
+        List<PostSummaryResponse> javascriptResults = postService.searchPosts("JavaScript", 0, 20);
+        List<PostSummaryResponse> learnResults = postService.searchPosts("Learn", 0, 20);
+        List<PostSummaryResponse> secondLearnPage = postService.searchPosts("Learn", 1, 2);
 
         // Then
         assertThat(javaResults).hasSize(1);
@@ -185,7 +188,10 @@ class PostIntegrationTest {
         assertThat(javascriptResults).hasSize(1);
         assertThat(javascriptResults.get(0).getTitle()).isEqualTo(jsPost.getTitle());
         
+        // Drafts are never returned
         assertThat(learnResults).hasSize(3);
+        assertThat(learnResults).extracting("title").doesNotContain("Learning Drafts");
+        assertThat(secondLearnPage).hasSize(1);
     }
 
     @Test
@@ -1,6 +1,6 @@
 package com.codehacks.post.controller;
 
-import com.codehacks.post.model.Post;
+import com.codehacks.post.dto.PostSummaryResponse;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -76,7 +76,7 @@ class PostControllerIntegrationTest {
     @Test
     void getAllPublishedPosts_shouldReturnPublishedPostsOnly() {
         // Given & When: Request all published posts
-        ResponseEntity<Post[]> response = restTemplate.getForEntity(baseUrl(), Post[].class);
+        ResponseEntity<PostSummaryResponse[]> response = restTemplate.getForEntity(baseUrl(), PostSummaryResponse[].class);
         
         // Then: Should return empty array
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -1,9 +1,10 @@
 package com.codehacks.post.controller;
 
+import com.codehacks.post.dto.PostFeedPage;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.model.PostStatus;
 import com.codehacks.post.service.PostService;
-import com.codehacks.user.model.User;
+import com.codehacks.user.model.AuthenticatedUser;
 import com.codehacks.user.model.UserRole;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,13 +16,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 
 /**
@@ -39,7 +40,7 @@ class PostControllerTest {
 
     // Test data
     private Post samplePost;
-    private User testUser;
+    private AuthenticatedUser testUser;
 
     @BeforeEach
     void setUp() {
@@ -48,6 +49,23 @@ class PostControllerTest {
         testUser = createTestUser();
     }
 
+    /**
+     * Test that the feed clamps oversized page requests and treats a blank cursor as the first page.
+     */
+    @Test
+    void getPublishedFeed_shouldClampSizeAndIgnoreBlankCursor() {
+        // Given
+        PostFeedPage page = PostFeedPage.builder().posts(List.of()).hasMore(false).build();
+        when(postService.getPublishedFeed(null, 100)).thenReturn(page);
+
+        // When
+        ResponseEntity<PostFeedPage> response = postController.getPublishedFeed(" ", 5000);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(page);
+    }
+
     /**
      * Test that a published post is accessible without authentication.
      * Should return 200 OK for published posts.
@@ -102,7 +120,7 @@ class PostControllerTest {
     @Test
     void getPostById_shouldReturnOkIfDraftAndAdmin() {
         // Given
-        User adminUser = createAdminUser();
+        AuthenticatedUser adminUser = createAdminUser();
         samplePost.setStatus(PostStatus.DRAFT);
         when(postService.getPostById(1L)).thenReturn(Optional.of(samplePost));
 
@@ -119,7 +137,7 @@ class PostControllerTest {
     @Test
     void getPostById_shouldReturnForbiddenIfDraftAndNotAuthorOrAdmin() {
         // Given
-        User otherUser = createOtherUser();
+        AuthenticatedUser otherUser = createOtherUser();
         samplePost.setStatus(PostStatus.DRAFT);
         samplePost.setAuthorId(testUser.getId()); // Different author
         when(postService.getPostById(1L)).thenReturn(Optional.of(samplePost));
@@ -171,7 +189,7 @@ class PostControllerTest {
     @Test
     void getPostById_shouldReturnOkIfDraftAndMissingAuthorIdButAdmin() {
         // Given
-        User adminUser = createAdminUser();
+        AuthenticatedUser adminUser = createAdminUser();
         samplePost.setStatus(PostStatus.DRAFT);
         samplePost.setAuthorId(null); // Missing authorId
         when(postService.getPostById(1L)).thenReturn(Optional.of(samplePost));
@@ -189,13 +207,14 @@ class PostControllerTest {
     @Test
     void clapForPost_shouldReturnOkWhenSuccessful() {
         // Given
-        doNothing().when(postService).clapForPost(1L, testUser.getId());
+        when(postService.clapForPost(1L, testUser.getId())).thenReturn(3L);
 
         // When
-        ResponseEntity<Void> response = postController.clapForPost(1L, testUser);
+        ResponseEntity<Long> response = postController.clapForPost(1L, testUser);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(3L);
     }
 
     /**
@@ -204,13 +223,14 @@ class PostControllerTest {
     @Test
     void unclapForPost_shouldReturnOkWhenSuccessful() {
         // Given
-        doNothing().when(postService).unclapForPost(1L, testUser.getId());
+        when(postService.unclapForPost(1L, testUser.getId())).thenReturn(2L);
 
         // When
-        ResponseEntity<Void> response = postController.unclapForPost(1L, testUser);
+        ResponseEntity<Long> response = postController.unclapForPost(1L, testUser);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(2L);
     }
 
     /**
@@ -281,7 +301,7 @@ class PostControllerTest {
         // When & Then
         assertThatThrownBy(() -> postController.clapForPost(1L, null))
                 .isInstanceOf(NullPointerException.class)
-                .hasMessage("Cannot invoke \"com.codehacks.user.model.User.getId()\" because \"currentUser\" is null");
+                .hasMessage("Cannot invoke \"com.codehacks.user.model.AuthenticatedUser.getId()\" because \"currentUser\" is null");
     }
 
     /**
@@ -292,7 +312,7 @@ class PostControllerTest {
         // When & Then
         assertThatThrownBy(() -> postController.unclapForPost(1L, null))
                 .isInstanceOf(NullPointerException.class)
-                .hasMessage("Cannot invoke \"com.codehacks.user.model.User.getId()\" because \"currentUser\" is null");
+                .hasMessage("Cannot invoke \"com.codehacks.user.model.AuthenticatedUser.getId()\" because \"currentUser\" is null");
     }
 
     /**
@@ -343,30 +363,15 @@ class PostControllerTest {
         return post;
     }
 
-    private User createTestUser() {
-        User user = new User();
-        user.setId(100L);
-        user.setUsername("testuser");
-        user.setEmail("test@example.com");
-        user.setRole(UserRole.USER);
-        return user;
+    private AuthenticatedUser createTestUser() {
+        return new AuthenticatedUser(100L, "test@example.com", UserRole.USER);
     }
 
-    private User createAdminUser() {
-        User user = new User();
-        user.setId(200L);
-        user.setUsername("adminuser");
-        user.setEmail("admin@example.com");
-        user.setRole(UserRole.ADMIN);
-        return user;
+    private AuthenticatedUser createAdminUser() {
+        return new AuthenticatedUser(200L, "admin@example.com", UserRole.ADMIN);
     }
 
-    private User createOtherUser() {
-        User user = new User();
-        user.setId(300L);
-        user.setUsername("otheruser");
-        user.setEmail("other@example.com");
-        user.setRole(UserRole.USER);
-        return user;
+    private AuthenticatedUser createOtherUser() {
+        return new AuthenticatedUser(300L, "other@example.com", UserRole.USER);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.codehacks.post.service;
+
+import com.codehacks.post.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClapCounterServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache postsCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClapCounterService clapCounterService;
+
+    @BeforeEach
+    void setUp() {
+        clapCounterService = new ClapCounterService(postRepository, jdbcTemplate, cacheManager,
+                new TransactionTemplate(transactionManager));
+        lenient().when(cacheManager.getCache("posts")).thenReturn(postsCache);
+        lenient().when(postRepository.findClapsCountById(any())).thenReturn(Optional.of(0));
+    }
+
+    @Test
+    void adjust_shouldReportPersistedCountPlusPendingDelta() {
+        when(postRepository.findClapsCountById(1L)).thenReturn(Optional.of(10));
+
+        assertThat(clapCounterService.adjust(1L, 1)).isEqualTo(11L);
+        assertThat(clapCounterService.adjust(1L, 1)).isEqualTo(12L);
+        assertThat(clapCounterService.adjust(1L, -1)).isEqualTo(11L);
+        // Only the first clap reads the persisted count
+        verify(postRepository, times(1)).findClapsCountById(1L);
+        verify(postRepository, never()).adjustClapsCount(any(), anyInt());
+    }
+
+    @Test
+    void adjust_shouldNotWaitForFlushToCommit() throws Exception {
+        when(postRepository.findClapsCountById(1L)).thenReturn(Optional.of(10));
+        clapCounterService.adjust(1L, 1);
+        persistedCounts(Map.of(1L, 11L));
+
+        AtomicReference<Long> clapDuringCommit = new AtomicReference<>();
+        doAnswer(invocation -> {
+            clapDuringCommit.set(CompletableFuture.supplyAsync(() -> clapCounterService.adjust(1L, 1))
+                    .get(5, TimeUnit.SECONDS));
+            return null;
+        }).when(transactionManager).commit(any());
+
+        clapCounterService.flush();
+
+        assertThat(clapDuringCommit.get()).isEqualTo(12L);
+        assertThat(clapCounterService.adjust(1L, 1)).isEqualTo(13L);
+        verify(postRepository, times(1)).findClapsCountById(1L);
+    }
+
+    @Test
+    void flush_shouldTakePersistedCountFromTheFlushedRow() {
+        when(postRepository.findClapsCountById(1L)).thenReturn(Optional.of(10));
+        clapCounterService.adjust(1L, 1);
+        // Another node flushed 4 claps of its own meanwhile
+        persistedCounts(Map.of(1L, 15L));
+        // A clap landing mid-flush keeps the post from being pruned afterwards
+        doAnswer(invocation -> clapCounterService.adjust(1L, 1)).when(transactionManager).commit(any());
+
+        clapCounterService.flush();
+
+        assertThat(clapCounterService.adjust(1L, 1)).isEqualTo(17L);
+        verify(postRepository, times(1)).findClapsCountById(1L);
+    }
+
+    @Test
+    void adjust_shouldUpdateInPlaceWhenWriteBehindDisabled() {
+        ReflectionTestUtils.setField(clapCounterService, "writeBehind", false);
+        when(postRepository.adjustClapsCount(1L, 1)).thenReturn(Optional.of(7));
+
+        assertThat(clapCounterService.adjust(1L, 1)).isEqualTo(7L);
+        assertThat(clapCounterService.pendingDelta(1L)).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldBatchNetDeltasAndEvictFlushedPosts() {
+        clapCounterService.adjust(1L, 1);
+        clapCounterService.adjust(1L, 1);
+        clapCounterService.adjust(2L, 1);
+        clapCounterService.adjust(2L, -1);
+
+        clapCounterService.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertThat(batch.getValue()).hasSize(1);
+        assertThat(batch.getValue().get(0)).containsExactly(2L, 1L);
+        verify(postsCache).evict(1L);
+        verify(postsCache, never()).evict(2L);
+        assertThat(clapCounterService.pendingDelta(1L)).isZero();
+    }
+
+    @Test
+    void flush_shouldOnlyWriteDeltaRecordedSinceLastFlush() {
+        clapCounterService.adjust(1L, 1);
+        clapCounterService.flush();
+        clapCounterService.flush();
+
+        clapCounterService.adjust(1L, 1);
+        assertThat(clapCounterService.pendingDelta(1L)).isEqualTo(1L);
+        clapCounterService.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void flush_shouldDropFullyFlushedPosts() {
+        clapCounterService.adjust(1L, 1);
+        clapCounterService.adjust(2L, 1);
+        clapCounterService.adjust(2L, -1);
+
+        clapCounterService.flush();
+
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(clapCounterService, "totals")).isEmpty();
+
+        clapCounterService.adjust(1L, 1);
+        assertThat(clapCounterService.pendingDelta(1L)).isEqualTo(1L);
+    }
+
+    @Test
+    void flush_shouldNotLoseClapsRacingThePruning() throws Exception {
+        AtomicLong written = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batch.forEach(args -> written.addAndGet((Long) args[0]));
+            return new int[batch.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        // Bursts of clap and unclap keep emptying the total, so most flushes prune it mid-burst
+        List<CompletableFuture<Void>> clappers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            clappers.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 2_000; j++) {
+                    clapCounterService.adjust(1L, 1);
+                    clapCounterService.adjust(1L, j % 2 == 0 ? -1 : 0);
+                }
+            }));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(clappers.toArray(CompletableFuture[]::new));
+        while (!all.isDone()) {
+            clapCounterService.flush();
+        }
+        all.get(5, TimeUnit.SECONDS);
+        clapCounterService.flush();
+
+        assertThat(written).hasValue(4 * 1_000);
+        assertThat(clapCounterService.pendingDelta(1L)).isZero();
+    }
+
+    @Test
+    void flush_shouldRetainDeltasWhenBatchFails() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        clapCounterService.adjust(1L, 1);
+
+        clapCounterService.flush();
+
+        assertThat(clapCounterService.pendingDelta(1L)).isEqualTo(1L);
+        verify(postsCache, never()).evict(1L);
+    }
+
+    @Test
+    void flush_shouldReadBackCountsOfFlushedPostsOnly() throws Exception {
+        clapCounterService.adjust(1L, 1);
+        clapCounterService.adjust(2L, 1);
+        clapCounterService.adjust(2L, -1);
+
+        clapCounterService.flush();
+
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).query(anyString(), setter.capture(), any(RowCallbackHandler.class));
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Connection connection = mock(Connection.class);
+        when(statement.getConnection()).thenReturn(connection);
+        setter.getValue().setValues(statement);
+        verify(connection).createArrayOf("bigint", new Object[]{1L});
+    }
+
+    @Test
+    void discard_shouldDropPendingDelta() {
+        clapCounterService.adjust(1L, 1);
+
+        clapCounterService.discard(1L);
+        clapCounterService.flush();
+
+        assertThat(clapCounterService.pendingDelta(1L)).isZero();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private void persistedCounts(Map<Long, Long> counts) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (Map.Entry<Long, Long> count : counts.entrySet()) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getLong("id")).thenReturn(count.getKey());
+                when(row.getLong("claps_count")).thenReturn(count.getValue());
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    }
+}
@@ -1,5 +1,9 @@
 package com.codehacks.post.service;
 
+import com.codehacks.config.CacheTagService;
+import com.codehacks.post.dto.PostCursor;
+import com.codehacks.post.dto.PostFeedPage;
+import com.codehacks.post.dto.PostSummaryResponse;
 import com.codehacks.post.model.Clap;
 import com.codehacks.post.model.Post;
 import com.codehacks.post.model.PostStatus;
@@ -11,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,7 +25,10 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,10 +41,17 @@ class PostServiceTest {
     @Mock
     private ClapRepository clapRepository;
 
+    @Mock
+    private ClapCounterService clapCounterService;
+
+    @Mock
+    private CacheTagService cacheTagService;
+
     @InjectMocks
     private PostService postService;
 
     private Post samplePost;
+    private PostSummaryResponse sampleSummary;
 
     @BeforeEach
     void setUp() {
@@ -50,27 +65,98 @@ class PostServiceTest {
         samplePost.setClapsCount(0);
         samplePost.setCreatedAt(LocalDateTime.now().minusDays(1));
         samplePost.setUpdatedAt(LocalDateTime.now());
+
+        sampleSummary = PostSummaryResponse.builder()
+                .id(1L)
+                .title("Test Post")
+                .excerpt("This is a test post.")
+                .authorId(100L)
+                .status(PostStatus.PUBLISHED)
+                .createdAt(samplePost.getCreatedAt())
+                .updatedAt(samplePost.getUpdatedAt())
+                .build();
+    }
+
+    @Test
+    void getAllPublishedPosts_shouldReturnPublishedSummaries() {
+        when(postRepository.findSummariesByStatus(PostStatus.PUBLISHED)).thenReturn(List.of(sampleSummary));
+
+        List<PostSummaryResponse> result = postService.getAllPublishedPosts();
+
+        assertThat(result).hasSize(1).contains(sampleSummary);
+        verify(postRepository).findSummariesByStatus(PostStatus.PUBLISHED);
+    }
+
+    @Test
+    void getPublishedPostsByAuthor_shouldReturnAuthorSummaries() {
+        when(postRepository.findSummariesByAuthorIdAndStatus(100L, PostStatus.PUBLISHED)).thenReturn(List.of(sampleSummary));
+
+        List<PostSummaryResponse> result = postService.getPublishedPostsByAuthor(100L);
+
+        assertThat(result).containsExactly(sampleSummary);
+        verify(postRepository).findSummariesByAuthorIdAndStatus(100L, PostStatus.PUBLISHED);
+    }
+
+    @Test
+    void getPublishedFeed_firstPage_shouldReturnCursorWhenMoreRowsExist() {
+        PostSummaryResponse older = PostSummaryResponse.builder()
+                .id(2L)
+                .title("Older")
+                .status(PostStatus.PUBLISHED)
+                .createdAt(samplePost.getCreatedAt().minusDays(1))
+                .build();
+        when(postRepository.findFeedFirstPage(PostStatus.PUBLISHED, PageRequest.of(0, 2)))
+                .thenReturn(List.of(sampleSummary, older));
+
+        PostFeedPage page = postService.getPublishedFeed(null, 1);
+
+        assertThat(page.getPosts()).hasSize(1);
+        assertThat(page.getPosts().get(0).getId()).isEqualTo(1L);
+        assertThat(page.isHasMore()).isTrue();
+        PostCursor cursor = PostCursor.decode(page.getNextCursor());
+        assertThat(cursor.id()).isEqualTo(1L);
+        assertThat(cursor.createdAt()).isEqualTo(samplePost.getCreatedAt());
+    }
+
+    @Test
+    void getPublishedFeed_withCursor_shouldSeekPastCursor() {
+        PostCursor cursor = new PostCursor(LocalDateTime.now(), 10L);
+        when(postRepository.findFeedPageAfter(eq(PostStatus.PUBLISHED), eq(cursor.createdAt()), eq(10L), eq(PageRequest.of(0, 21))))
+                .thenReturn(List.of(sampleSummary));
+
+        PostFeedPage page = postService.getPublishedFeed(cursor.encode(), 20);
+
+        assertThat(page.getPosts()).hasSize(1);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getPublishedFeed_shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> postService.getPublishedFeed("not-a-cursor", 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid feed cursor");
     }
 
     @Test
-    void getAllPublishedPosts_shouldReturnPublishedPosts() {
-        when(postRepository.findByStatus(PostStatus.PUBLISHED)).thenReturn(List.of(samplePost));
+    void searchPosts_shouldReturnSummariesInRankOrder() {
+        PostSummaryResponse better = PostSummaryResponse.builder().id(2L).title("Test Test").build();
+        when(postRepository.searchPublishedIds("test", PageRequest.of(0, 20))).thenReturn(List.of(2L, 1L));
+        when(postRepository.findSummariesByIdIn(List.of(2L, 1L))).thenReturn(List.of(sampleSummary, better));
 
-        List<Post> result = postService.getAllPublishedPosts();
+        List<PostSummaryResponse> result = postService.searchPosts("test", 0, 20);
 
-        assertThat(result).hasSize(1).contains(samplePost);
-        verify(postRepository).findByStatus(PostStatus.PUBLISHED);
+        assertThat(result).containsExactly(better, sampleSummary);
     }
 
     @Test
-    void searchPosts_shouldReturnMatchingPosts() {
-        when(postRepository.findByTitleContainingIgnoreCaseOrContentContainingIgnoreCase("test", "test"))
-                .thenReturn(List.of(samplePost));
+    void searchPosts_shouldSkipSummaryLookupWhenNothingMatches() {
+        when(postRepository.searchPublishedIds("nothing", PageRequest.of(1, 10))).thenReturn(List.of());
 
-        List<Post> result = postService.searchPosts("test");
+        List<PostSummaryResponse> result = postService.searchPosts("nothing", 1, 10);
 
-        assertThat(result).hasSize(1).contains(samplePost);
-        verify(postRepository).findByTitleContainingIgnoreCaseOrContentContainingIgnoreCase("test", "test");
+        assertThat(result).isEmpty();
+        verify(postRepository, never()).findSummariesByIdIn(any());
     }
 
     @Test
@@ -115,6 +201,27 @@ class PostServiceTest {
         assertThat(result.getCreatedAt()).isNotNull();
         assertThat(result.getUpdatedAt()).isNotNull();
         verify(postRepository).save(any(Post.class));
+        verify(postRepository).refreshSearchVector(2L);
+        // Drafts are not listed anywhere, so no cached list is affected
+        verify(cacheTagService, never()).evictTags(any(), any());
+    }
+
+    @Test
+    void createPost_whenPublished_shouldEvictOnlyListsTheNewPostJoins() {
+        Post toCreate = new Post();
+        toCreate.setTitle("New");
+        toCreate.setContent("Content");
+        toCreate.setAuthorId(101L);
+        toCreate.setStatus(PostStatus.PUBLISHED);
+        when(postRepository.save(any(Post.class))).thenAnswer(inv -> {
+            Post p = inv.getArgument(0);
+            p.setId(2L);
+            return p;
+        });
+
+        postService.createPost(toCreate);
+
+        verify(cacheTagService).evictTags("posts", List.of("published", "author:101", "feed:head", "search"));
     }
 
     @Test
@@ -136,6 +243,23 @@ class PostServiceTest {
         assertThat(result.getStatus()).isEqualTo(PostStatus.PUBLISHED);
         verify(postRepository).findById(1L);
         verify(postRepository).save(any(Post.class));
+        verify(postRepository).refreshSearchVector(1L);
+        verify(cacheTagService).evictTags("posts", List.of("post:1", "search"));
+    }
+
+    @Test
+    void updatePost_whenDraftIsPublished_shouldEvictListsItJoins() {
+        samplePost.setStatus(PostStatus.DRAFT);
+        Post updated = new Post();
+        updated.setTitle(samplePost.getTitle());
+        updated.setContent(samplePost.getContent());
+        updated.setStatus(PostStatus.PUBLISHED);
+        when(postRepository.findById(1L)).thenReturn(Optional.of(samplePost));
+        when(postRepository.save(any(Post.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        postService.updatePost(1L, updated);
+
+        verify(cacheTagService).evictTags("posts", List.of("post:1", "published", "author:100", "feed", "search"));
     }
 
     @Test
@@ -157,6 +281,8 @@ class PostServiceTest {
 
         verify(postRepository).existsById(1L);
         verify(postRepository).deleteById(1L);
+        verify(clapCounterService).discard(1L);
+        verify(cacheTagService).evictTags("posts", List.of("post:1"));
     }
 
     @Test
@@ -170,92 +296,58 @@ class PostServiceTest {
     }
 
     @Test
-    void clapForPost_shouldAddClapAndIncrementCount() {
-        when(clapRepository.findByUserIdAndPostId(100L, 1L)).thenReturn(Optional.empty());
-        when(postRepository.findById(1L)).thenReturn(Optional.of(samplePost));
-        when(clapRepository.save(any(Clap.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(postRepository.save(any(Post.class))).thenAnswer(inv -> inv.getArgument(0));
+    void clapForPost_shouldInsertClapAndReturnNewCount() {
+        when(clapRepository.insertIfAbsent(100L, 1L)).thenReturn(1);
+        when(clapCounterService.adjust(1L, 1)).thenReturn(5L);
 
-        postService.clapForPost(1L, 100L);
+        long count = postService.clapForPost(1L, 100L);
 
-        assertThat(samplePost.getClapsCount()).isEqualTo(1);
-        verify(clapRepository).findByUserIdAndPostId(100L, 1L);
-        verify(clapRepository).save(any(Clap.class));
-        verify(postRepository).save(any(Post.class));
+        assertThat(count).isEqualTo(5L);
+        verify(postRepository, never()).existsById(any());
+        verify(postRepository, never()).save(any(Post.class));
     }
 
     @Test
     void clapForPost_shouldThrowIfAlreadyClapped() {
-        when(clapRepository.findByUserIdAndPostId(100L, 1L)).thenReturn(Optional.of(new Clap()));
+        when(clapRepository.insertIfAbsent(100L, 1L)).thenReturn(0);
+        when(postRepository.existsById(1L)).thenReturn(true);
 
         assertThatThrownBy(() -> postService.clapForPost(1L, 100L))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("already clapped");
-        verify(clapRepository).findByUserIdAndPostId(100L, 1L);
+        verify(clapCounterService, never()).adjust(any(), anyInt());
     }
 
     @Test
     void clapForPost_shouldThrowIfPostNotFound() {
-        when(clapRepository.findByUserIdAndPostId(100L, 2L)).thenReturn(Optional.empty());
-        when(postRepository.findById(2L)).thenReturn(Optional.empty());
+        when(clapRepository.insertIfAbsent(100L, 2L)).thenReturn(0);
+        when(postRepository.existsById(2L)).thenReturn(false);
 
         assertThatThrownBy(() -> postService.clapForPost(2L, 100L))
                 .isInstanceOf(NoSuchElementException.class)
                 .hasMessageContaining("Post not found with ID: 2");
-        verify(postRepository).findById(2L);
+        verify(clapCounterService, never()).adjust(any(), anyInt());
     }
 
     @Test
-    void unclapForPost_shouldRemoveClapAndDecrementCount() {
-        Clap clap = new Clap();
+    void unclapForPost_shouldRemoveClapAndReturnNewCount() {
+        when(clapRepository.deleteByUserIdAndPostId(100L, 1L)).thenReturn(1);
+        when(clapCounterService.adjust(1L, -1)).thenReturn(4L);
 
-        when(clapRepository.findByUserIdAndPostId(100L, 1L)).thenReturn(Optional.of(clap));
-        when(postRepository.findById(1L)).thenReturn(Optional.of(samplePost));
-        doNothing().when(clapRepository).delete(clap);
-        when(postRepository.save(any(Post.class))).thenAnswer(inv -> inv.getArgument(0));
+        long count = postService.unclapForPost(1L, 100L);
 
-        samplePost.setClapsCount(2);
-        postService.unclapForPost(1L, 100L);
-
-        assertThat(samplePost.getClapsCount()).isEqualTo(1);
-        verify(clapRepository).delete(clap);
-        verify(postRepository).save(any(Post.class));
-    }
-
-    @Test
-    void unclapForPost_shouldNotGoBelowZero() {
-        Clap clap = new Clap();
-
-        when(clapRepository.findByUserIdAndPostId(100L, 1L)).thenReturn(Optional.of(clap));
-        when(postRepository.findById(1L)).thenReturn(Optional.of(samplePost));
-        doNothing().when(clapRepository).delete(clap);
-        when(postRepository.save(any(Post.class))).thenAnswer(inv -> inv.getArgument(0));
-
-        samplePost.setClapsCount(0);
-        postService.unclapForPost(1L, 100L);
-
-        assertThat(samplePost.getClapsCount()).isEqualTo(0);
+        assertThat(count).isEqualTo(4L);
+        verify(postRepository, never()).save(any(Post.class));
     }
 
     @Test
     void unclapForPost_shouldThrowIfClapNotFound() {
-        when(clapRepository.findByUserIdAndPostId(100L, 1L)).thenReturn(Optional.empty());
+        when(clapRepository.deleteByUserIdAndPostId(100L, 1L)).thenReturn(0);
 
         assertThatThrownBy(() -> postService.unclapForPost(1L, 100L))
                 .isInstanceOf(NoSuchElementException.class)
                 .hasMessageContaining("Clap not found");
-    }
-
-    @Test
-    void unclapForPost_shouldThrowIfPostNotFound() {
-        Clap clap = new Clap();
-
-        when(clapRepository.findByUserIdAndPostId(100L, 2L)).thenReturn(Optional.of(clap));
-        when(postRepository.findById(2L)).thenReturn(Optional.empty());
-
-        assertThatThrownBy(() -> postService.unclapForPost(2L, 100L))
-                .isInstanceOf(NoSuchElementException.class)
-                .hasMessageContaining("Post not found with ID: 2");
+        verify(clapCounterService, never()).adjust(any(), anyInt());
     }
 
     @Test
@@ -0,0 +1,61 @@
+package com.codehacks.user;
+
+import com.codehacks.user.model.AuthenticatedUser;
+import com.codehacks.user.model.UserRole;
+import com.codehacks.user.service.AuthenticatedUserCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticatedUserCacheTest {
+
+    private static final Date ISSUED_AT = new Date(1_700_000_000_000L);
+
+    private AuthenticatedUserCache cache;
+    private AtomicInteger loads;
+    private Supplier<AuthenticatedUser> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AuthenticatedUserCache(100, 60_000);
+        loads = new AtomicInteger();
+        loader = () -> {
+            loads.incrementAndGet();
+            return new AuthenticatedUser(1L, "jane@example.com", UserRole.USER);
+        };
+    }
+
+    @Test
+    void get_shouldResolvePrincipalOncePerToken() {
+        AuthenticatedUser first = cache.get("jane@example.com", ISSUED_AT, loader);
+        AuthenticatedUser second = cache.get("jane@example.com", ISSUED_AT, loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_shouldResolveAgainForNewlyIssuedToken() {
+        cache.get("jane@example.com", ISSUED_AT, loader);
+        cache.get("jane@example.com", new Date(ISSUED_AT.getTime() + 1000), loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evict_shouldDropEveryTokenOfTheUser() {
+        cache.get("jane@example.com", ISSUED_AT, loader);
+        cache.get("jane@example.com", new Date(ISSUED_AT.getTime() + 1000), loader);
+
+        cache.evict(1L, null);
+        cache.get("jane@example.com", ISSUED_AT, loader);
+
+        assertThat(loads).hasValue(3);
+    }
+}
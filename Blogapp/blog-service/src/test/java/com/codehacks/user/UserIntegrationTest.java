@@ -15,6 +15,8 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -75,6 +77,9 @@ class UserIntegrationTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @BeforeEach
     void cleanDb() {
         userRepository.deleteAll();
@@ -242,4 +247,26 @@ class UserIntegrationTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("User with this email already exists");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void saveUser_shouldRevokeTokens_whenManagedUserEmailIsChangedInPlace() {
+        // Given
+        User user = new User();
+        user.setUsername("managed");
+        user.setFirstName("Managed");
+        user.setLastName("User");
+        user.setEmail("managed@example.com");
+        user.setRole(UserRole.USER);
+        Long id = userService.saveUser(user).getId();
+
+        // When - As with open-in-view, the user is read, changed and saved in one persistence context
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User managed = userRepository.findById(id).orElseThrow();
+            managed.setEmail("renamed@example.com");
+            userService.saveUser(managed);
+        });
+
+        // Then
+        assertThat(userRepository.findTokenVersionById(id)).contains(1);
+    }
+}
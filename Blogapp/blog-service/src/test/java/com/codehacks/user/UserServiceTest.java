@@ -1,8 +1,10 @@
 package com.codehacks.user;
 
+import com.codehacks.user.dto.StoredCredentials;
 import com.codehacks.user.model.User;
 import com.codehacks.user.model.UserRole;
 import com.codehacks.user.repository.UserRepository;
+import com.codehacks.user.service.AuthenticatedUserCache;
 import com.codehacks.user.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +27,9 @@ class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+
+    @Mock
+    private AuthenticatedUserCache authenticatedUserCache;
     
     @InjectMocks
     private UserService userService;
@@ -184,6 +189,54 @@ class UserServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(1L);
         verify(userRepository).save(userToSave);
+        verify(authenticatedUserCache).evict(1L, "test@example.com");
+    }
+
+    @Test
+    void saveUser_shouldBumpTokenVersion_whenEmailChanges() {
+        // Given
+        User userToSave = createTestUser("new@example.com");
+        when(userRepository.findStoredCredentialsById(1L))
+                .thenReturn(Optional.of(new StoredCredentials("old@example.com", UserRole.USER, 2)));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        User result = userService.saveUser(userToSave);
+
+        // Then
+        assertThat(result.getTokenVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void saveUser_shouldBumpTokenVersion_whenRoleChanges() {
+        // Given
+        User userToSave = createTestUser("test@example.com");
+        userToSave.setRole(UserRole.ADMIN);
+        when(userRepository.findStoredCredentialsById(1L))
+                .thenReturn(Optional.of(new StoredCredentials("test@example.com", UserRole.USER, 2)));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        User result = userService.saveUser(userToSave);
+
+        // Then
+        assertThat(result.getTokenVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void saveUser_shouldKeepCurrentTokenVersion_whenCredentialsUnchanged() {
+        // Given - The copy being saved was read before the tokens were last revoked
+        User userToSave = createTestUser("test@example.com");
+        userToSave.setFirstName("Renamed");
+        when(userRepository.findStoredCredentialsById(1L))
+                .thenReturn(Optional.of(new StoredCredentials("test@example.com", UserRole.USER, 2)));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        User result = userService.saveUser(userToSave);
+
+        // Then
+        assertThat(result.getTokenVersion()).isEqualTo(2);
     }
 
     @Test
@@ -198,6 +251,42 @@ class UserServiceTest {
         // Then
         verify(userRepository).existsById(userId);
         verify(userRepository).deleteById(userId);
+        verify(authenticatedUserCache).evict(userId, null);
+    }
+
+    @Test
+    void getTokenVersion_shouldReturnMinusOne_whenUserNotFound() {
+        // Given
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThat(userService.getTokenVersion(1L)).isEqualTo(-1);
+    }
+
+    @Test
+    void revokeTokens_shouldBumpTokenVersionAndDropCachedPrincipals() {
+        // Given
+        User user = createTestUser("test@example.com");
+        user.setTokenVersion(1);
+        when(userRepository.incrementTokenVersion(1L)).thenReturn(1);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // When
+        User result = userService.revokeTokens(1L);
+
+        // Then
+        assertThat(result.getTokenVersion()).isEqualTo(1);
+        verify(userRepository).incrementTokenVersion(1L);
+        verify(authenticatedUserCache).evict(1L, "test@example.com");
+    }
+
+    @Test
+    void revokeTokens_shouldThrowException_whenUserNotFound() {
+        // Given
+        when(userRepository.incrementTokenVersion(1L)).thenReturn(0);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> userService.revokeTokens(1L));
     }
 
     private User createTestUser(String email) {